@@ -0,0 +1,153 @@
+package io.block.api;
+
+import io.block.api.utils.Constants;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Responses in the shape block.io sends them, sized like a busy account, and a {@link StubServer} serving them.
+ */
+final class BenchmarkFixtures {
+
+    static final String PIN = "bc4779ff545bc04a54e6c32b7609a91b";
+    static final int ADDRESSES = 10000;
+    static final int ITEMS_PER_REQUEST = 100;
+    static final int TX_PAGES = 5;
+    static final int TXS_PER_PAGE = 100;
+
+    static final String BALANCE_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"available_balance\":\"12345.67890000\",\"pending_received_balance\":\"10.00000000\"}}";
+    static final String NEW_ADDRESS_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"user_id\":10001,\"address\":\"" + address(10001) + "\",\"label\":\"payout\"}}";
+    static final String ADDRESS_BY_LABEL_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"user_id\":1,\"address\":\"" + address(1) + "\",\"label\":\"label-1\",\"available_balance\":\"1.25000000\",\"pending_received_balance\":\"0.00000000\"}}";
+    static final String PRICES_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"prices\":["
+            + "{\"price\":\"0.00020000\",\"price_base\":\"USD\",\"exchange\":\"cryptsy\",\"time\":1414000000},"
+            + "{\"price\":\"0.00000052\",\"price_base\":\"BTC\",\"exchange\":\"cryptsy\",\"time\":1414000000}]}}";
+    static final String WITHDRAWAL_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txid\":\"" + txid(0, 0)
+            + "\",\"amount_withdrawn\":\"2.00000000\",\"amount_sent\":\"1.00000000\",\"network_fee\":\"1.00000000\",\"blockio_fee\":\"0.00000000\"}}";
+
+    private BenchmarkFixtures() {
+    }
+
+    static String address(int i) {
+        return "DAddr" + String.format("%029d", i);
+    }
+
+    static String[] addresses(int count) {
+        String[] addresses = new String[count];
+        for (int i = 0; i < count; i++) {
+            addresses[i] = address(i);
+        }
+        return addresses;
+    }
+
+    static String txid(int page, int i) {
+        return String.format("%032x%032x", page, i);
+    }
+
+    static String[] txids(int count) {
+        String[] txids = new String[count];
+        for (int i = 0; i < count; i++) {
+            txids[i] = txid(0, i);
+        }
+        return txids;
+    }
+
+    static String accountAddresses(int count) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"user_id\":").append(i).append(",\"address\":\"").append(address(i))
+                    .append("\",\"label\":\"label-").append(i).append("\",\"available_balance\":\"1.25000000\",\"pending_received_balance\":\"0.00000000\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    static String addressBalances(int count) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"available_balance\":\"125.00000000\",\"pending_received_balance\":\"0.00000000\",\"balances\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"user_id\":").append(i).append(",\"address\":\"").append(address(i))
+                    .append("\",\"label\":\"label-").append(i).append("\",\"available_balance\":\"1.25000000\",\"pending_received_balance\":\"0.00000000\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    static String greenAddresses(int count) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"green_addresses\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"address\":\"").append(address(i)).append("\",\"network\":\"DOGE\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    static String greenTransactions(int count) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"green_txs\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"txid\":\"").append(txid(0, i)).append("\",\"network\":\"DOGE\"}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * One page of received transactions, or an empty one past the last page
+     */
+    static String receivedPage(int page) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txs\":[");
+        for (int i = 0; page < TX_PAGES && i < TXS_PER_PAGE; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"txid\":\"").append(txid(page, i))
+                    .append("\",\"from_greem_address\":false,\"time\":").append(1414000000L - page * TXS_PER_PAGE - i)
+                    .append(",\"confirmations\":").append(page * TXS_PER_PAGE + i)
+                    .append(",\"amountsReceived\":[{\"recipient\":\"").append(address(i)).append("\",\"amount\":\"1.50000000\"}]")
+                    .append(",\"senders\":[\"").append(address(i + 1)).append("\"],\"confidence\":1.0,\"propagated_by_nodes\":8}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    static String sentPage() {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txs\":[");
+        for (int i = 0; i < TXS_PER_PAGE; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"txid\":\"").append(txid(TX_PAGES, i))
+                    .append("\",\"from_greem_address\":false,\"time\":").append(1414000000L - i)
+                    .append(",\"confirmations\":").append(i)
+                    .append(",\"total_amount_sent\":\"2.00000000\",\"amountsSent\":[{\"recipient\":\"").append(address(i)).append("\",\"amount\":\"1.00000000\"}]")
+                    .append(",\"senders\":[\"").append(address(i + 1)).append("\"],\"confidence\":1.0,\"propagated_by_nodes\":8}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * The sign request of the withdrawal, the fixture of the signing tests
+     */
+    static String withdrawSignRequest() throws IOException, URISyntaxException {
+        return new String(Files.readAllBytes(Paths.get(BenchmarkFixtures.class.getResource("utils/sample_signing_request.json").toURI())), "UTF-8");
+    }
+
+    /**
+     * Starts a stub serving all fixtures. Received transactions page through {@link #TX_PAGES} pages via before_tx,
+     * sent transactions are a single page.
+     */
+    static StubServer startStub() throws IOException, URISyntaxException {
+        // Without it the JDK server's small writes meet delayed ACKs and every call takes ~40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        StubServer stub = new StubServer();
+        stub.setRecording(false);
+        stub.respond(Constants.Methods.GET_ACCOUNT_BALANCE, BALANCE_JSON);
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, NEW_ADDRESS_JSON);
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, accountAddresses(ADDRESSES));
+        stub.respond(Constants.Methods.GET_ADDR_BALANCE, addressBalances(ITEMS_PER_REQUEST));
+        stub.respond(Constants.Methods.GET_ADDR_BY_LABEL, ADDRESS_BY_LABEL_JSON);
+        stub.respond(Constants.Methods.GET_PRICES, PRICES_JSON);
+        stub.respond(Constants.Methods.IS_GREEN_ADDR, greenAddresses(ITEMS_PER_REQUEST));
+        stub.respond(Constants.Methods.IS_GREEN_TX, greenTransactions(ITEMS_PER_REQUEST));
+        stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, withdrawSignRequest());
+        stub.respond(Constants.Methods.WITHDRAW_FROM_ADDRS, withdrawSignRequest());
+        stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, WITHDRAWAL_JSON);
+
+        stub.respond(Constants.Methods.GET_TXNS, receivedPage(0));
+        for (int page = 1; page <= TX_PAGES; page++) {
+            stub.respondWhen(Constants.Methods.GET_TXNS, Constants.Params.BEFORE_TX, txid(page - 1, TXS_PER_PAGE - 1), receivedPage(page));
+        }
+        stub.respondWhen(Constants.Methods.GET_TXNS, Constants.Params.TYPE, Constants.Values.TYPE_SENT, sentPage());
+        return stub;
+    }
+}
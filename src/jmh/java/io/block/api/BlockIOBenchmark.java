@@ -0,0 +1,236 @@
+package io.block.api;
+
+import io.block.api.model.AccountAddresses;
+import io.block.api.model.AccountBalance;
+import io.block.api.model.Address;
+import io.block.api.model.AddressBalances;
+import io.block.api.model.AddressByLabel;
+import io.block.api.model.FixedAmount;
+import io.block.api.model.GreenAddresses;
+import io.block.api.model.GreenTransactions;
+import io.block.api.model.NewAddress;
+import io.block.api.model.Prices;
+import io.block.api.model.TransactionReceived;
+import io.block.api.model.TransactionSent;
+import io.block.api.model.TransactionsReceived;
+import io.block.api.model.TransactionsSent;
+import io.block.api.model.Withdrawal;
+import io.block.api.utils.BlockIOException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmarks of the public {@link BlockIO} methods against an in-process {@link StubServer} serving
+ * {@link BenchmarkFixtures}. <br>
+ * Every benchmark reports throughput and, from sampled calls, latency percentiles. {@link #main(String[])} runs the suite
+ * once per level in {@link #CONCURRENCY}:
+ * {@code mvn -Pjmh test-compile exec:exec -Djmh.main=io.block.api.BlockIOBenchmark}. Responses are not compressed and
+ * identical reads are not coalesced, so every call is one full round trip and decode.
+ * {@link ClientOverheadBenchmark} splits a call into parameter building, transport and parsing. The by-address, by-label
+ * and by-user-ID variants of the transaction methods share their code path with the plain ones and are left out.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BlockIOBenchmark {
+
+    static final int[] CONCURRENCY = {1, 4, 16};
+
+    private StubServer stub;
+    private BlockIO api;
+    private String[] addresses;
+    private String[] labels;
+    private String[] txids;
+    private Map<String, FixedAmount> targets;
+    private List<ApiCall<AccountBalance>> balanceCalls;
+
+    /**
+     * Runs the benchmarks of this class, or those selected by the arguments, at each concurrency level. Arguments are
+     * passed on to JMH as options.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        for (int threads : CONCURRENCY) {
+            OptionsBuilder builder = new OptionsBuilder();
+            if (options.getIncludes().isEmpty()) {
+                builder.include(BlockIOBenchmark.class.getName() + "\\.");
+            }
+            new Runner(builder.parent(options).threads(threads).build()).run();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stub = BenchmarkFixtures.startStub();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.coalesceReads = false;
+        config.compressResponses = false;
+        config.maxConnections = 64;
+        config.maxConnectionsPerRoute = 64;
+        api = new BlockIO("benchmark-key", config);
+
+        addresses = BenchmarkFixtures.addresses(BenchmarkFixtures.ITEMS_PER_REQUEST);
+        labels = new String[addresses.length];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = "label-" + i;
+        }
+        txids = BenchmarkFixtures.txids(BenchmarkFixtures.ITEMS_PER_REQUEST);
+        targets = new LinkedHashMap<String, FixedAmount>();
+        for (int i = 0; i < 10; i++) {
+            targets.put(addresses[i], FixedAmount.parse("1.5"));
+        }
+        balanceCalls = new ArrayList<ApiCall<AccountBalance>>();
+        for (int i = 0; i < 16; i++) {
+            balanceCalls.add(new ApiCall<AccountBalance>() {
+                @Override
+                public AccountBalance call(BlockIO api) throws BlockIOException {
+                    return api.getAccountBalance();
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        api.close();
+        stub.stop();
+    }
+
+    @Benchmark
+    public AccountBalance getAccountBalance() throws BlockIOException {
+        return api.getAccountBalance();
+    }
+
+    @Benchmark
+    public NewAddress getNewAddress() throws BlockIOException {
+        return api.getNewAddress(null);
+    }
+
+    @Benchmark
+    public AccountAddresses getAccountAddresses() throws BlockIOException {
+        return api.getAccountAddresses();
+    }
+
+    @Benchmark
+    public void visitAccountAddresses(final Blackhole blackhole) throws BlockIOException {
+        api.visitAccountAddresses(new ElementVisitor<Address>() {
+            @Override
+            public void visit(Address element) {
+                blackhole.consume(element);
+            }
+        });
+    }
+
+    @Benchmark
+    public AddressBalances getAddressBalancesByAddress() throws BlockIOException {
+        return api.getAddressBalancesByAddress(addresses);
+    }
+
+    @Benchmark
+    public AddressBalances getAddressBalancesByLabels() throws BlockIOException {
+        return api.getAddressBalancesByLabels(labels);
+    }
+
+    @Benchmark
+    public AddressByLabel getAddressByLabel() throws BlockIOException {
+        return api.getAddressByLabel("label-1");
+    }
+
+    @Benchmark
+    public Prices getPrices() throws BlockIOException {
+        return api.getPrices("USD");
+    }
+
+    @Benchmark
+    public GreenAddresses isGreenAddress() throws BlockIOException {
+        return api.isGreenAddress(addresses);
+    }
+
+    @Benchmark
+    public GreenTransactions isGreenTransaction() throws BlockIOException {
+        return api.isGreenTransaction(txids);
+    }
+
+    @Benchmark
+    public TransactionsReceived getTransactionsReceived() throws BlockIOException {
+        return api.getTransactionsReceived(null);
+    }
+
+    @Benchmark
+    public TransactionsSent getTransactionsSent() throws BlockIOException {
+        return api.getTransactionsSent(null);
+    }
+
+    @Benchmark
+    public void visitTransactionsReceived(final Blackhole blackhole) throws BlockIOException {
+        api.visitTransactionsReceived(null, new ElementVisitor<TransactionReceived>() {
+            @Override
+            public void visit(TransactionReceived element) {
+                blackhole.consume(element);
+            }
+        });
+    }
+
+    @Benchmark
+    public void visitTransactionsSent(final Blackhole blackhole) throws BlockIOException {
+        api.visitTransactionsSent(null, new ElementVisitor<TransactionSent>() {
+            @Override
+            public void visit(TransactionSent element) {
+                blackhole.consume(element);
+            }
+        });
+    }
+
+    /**
+     * Pages through the whole received history, {@link BenchmarkFixtures#TX_PAGES} pages and the empty one after them
+     */
+    @Benchmark
+    public long streamTransactionsReceived() {
+        try (TransactionHistory<TransactionReceived> history = api.streamTransactionsReceived(null)) {
+            return history.stream().count();
+        }
+    }
+
+    /**
+     * Both phases of a withdrawal: the sign request, signing with the PIN and finalizing
+     */
+    @Benchmark
+    public Withdrawal withdrawToAddress() throws BlockIOException {
+        return api.withdrawToAddress(addresses[0], FixedAmount.parse("1.5"), BenchmarkFixtures.PIN);
+    }
+
+    @Benchmark
+    public Withdrawal withdraw() throws BlockIOException {
+        return api.withdraw(addresses, BlockIO.ParamType.ADDRS, targets, BlockIO.ParamType.ADDRS, BenchmarkFixtures.PIN);
+    }
+
+    @Benchmark
+    public List<BulkResult<AccountBalance>> executeAll() throws BlockIOException {
+        return api.executeAll(balanceCalls);
+    }
+}
@@ -0,0 +1,148 @@
+package io.block.api;
+
+import io.block.api.model.FixedAmount;
+import io.block.api.model.Response;
+import io.block.api.model.WithdrawSignRequest;
+import io.block.api.transport.HttpClientTransport;
+import io.block.api.transport.TransportRequest;
+import io.block.api.transport.TransportResponse;
+import io.block.api.utils.BlockIOException;
+import io.block.api.utils.Constants;
+import io.block.api.utils.SigningUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three parts of a {@link BlockIO} call timed on their own: building the parameters and the request, the round trip
+ * through {@link HttpClientTransport} to the {@link StubServer}, and decoding the body with {@link BlockIO#getResponse}. <br>
+ * Transport benchmarks drain the body without decoding it, parsing benchmarks decode bodies already in memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientOverheadBenchmark {
+
+    private StubServer stub;
+    private BlockIO api;
+    private HttpClientTransport transport;
+    private String[] addresses;
+    private Map<String, FixedAmount> targets;
+    private WithdrawSignRequest signedRequest;
+    private TransportRequest balanceRequest;
+    private TransportRequest addressesRequest;
+    private byte[] balanceBody;
+    private byte[] addressesBody;
+    private byte[] receivedBody;
+    private final byte[] drain = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stub = BenchmarkFixtures.startStub();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.compressResponses = false;
+        api = new BlockIO("benchmark-key", config);
+        transport = new HttpClientTransport(config);
+
+        addresses = BenchmarkFixtures.addresses(BenchmarkFixtures.ITEMS_PER_REQUEST);
+        targets = new LinkedHashMap<String, FixedAmount>();
+        for (String address : addresses) {
+            targets.put(address, FixedAmount.parse("1.5"));
+        }
+        Response.ResponseWithdrawSignRequest signResponse = (Response.ResponseWithdrawSignRequest) BlockIO.getResponse(
+                new TransportResponse(200, BenchmarkFixtures.withdrawSignRequest().getBytes("UTF-8")), Response.ResponseWithdrawSignRequest.class);
+        signedRequest = SigningUtils.signWithdrawalRequest(signResponse.withdrawSignRequest, BenchmarkFixtures.PIN);
+
+        balanceRequest = api.buildGetRequest(Constants.Methods.GET_ACCOUNT_BALANCE, null);
+        addressesRequest = api.buildGetRequest(Constants.Methods.GET_MY_ADDRESSES, null);
+        balanceBody = BenchmarkFixtures.BALANCE_JSON.getBytes("UTF-8");
+        addressesBody = BenchmarkFixtures.accountAddresses(BenchmarkFixtures.ADDRESSES).getBytes("UTF-8");
+        receivedBody = BenchmarkFixtures.receivedPage(0).getBytes("UTF-8");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        transport.close();
+        api.close();
+        stub.stop();
+    }
+
+    @Benchmark
+    public HashMap<String, String> withdrawalParams() throws BlockIOException {
+        return BlockIO.setupWithdrawalParams(targets, BlockIO.ParamType.ADDRS);
+    }
+
+    @Benchmark
+    public String joinList() {
+        return BlockIO.joinList(addresses);
+    }
+
+    @Benchmark
+    public TransportRequest buildGetRequest() {
+        return api.buildGetRequest(Constants.Methods.GET_ADDR_BALANCE, BlockIO.listParam(Constants.Params.ADDRS, addresses, "addresses"));
+    }
+
+    /**
+     * The final withdrawal request: the signed request serialized to JSON and form encoded
+     */
+    @Benchmark
+    public TransportRequest buildPostRequest() {
+        return api.buildPostRequest(Constants.Methods.WITHDRAW_DO_FINAL, BlockIO.signatureParams(signedRequest));
+    }
+
+    @Benchmark
+    public long transportAccountBalance() throws IOException {
+        return roundTrip(balanceRequest);
+    }
+
+    @Benchmark
+    public long transportAccountAddresses() throws IOException {
+        return roundTrip(addressesRequest);
+    }
+
+    @Benchmark
+    public Response parseAccountBalance() throws BlockIOException {
+        return BlockIO.getResponse(new TransportResponse(200, balanceBody), Response.ResponseAccountBalance.class);
+    }
+
+    @Benchmark
+    public Response parseAccountAddresses() throws BlockIOException {
+        return BlockIO.getResponse(new TransportResponse(200, addressesBody), Response.ResponseAccountAddresses.class);
+    }
+
+    @Benchmark
+    public Response parseTransactionsReceived() throws BlockIOException {
+        return BlockIO.getResponse(new TransportResponse(200, receivedBody), Response.ResponseTransactionsReceived.class);
+    }
+
+    private long roundTrip(TransportRequest request) throws IOException {
+        long length = 0;
+        try (TransportResponse response = transport.execute(request)) {
+            InputStream body = response.getBody();
+            for (int read; (read = body.read(drain)) != -1; ) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
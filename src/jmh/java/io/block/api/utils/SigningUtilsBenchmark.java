@@ -0,0 +1,150 @@
+package io.block.api.utils;
+
+import com.google.gson.Gson;
+import io.block.api.model.Input;
+import io.block.api.model.Response;
+import io.block.api.model.WithdrawSignRequest;
+import org.bouncycastle.util.encoders.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the steps of signing a withdrawal, on the fixtures of {@link SigningUtilsTest}. <br>
+ * Key and signature benchmarks run with every {@link SigningEngine}, full requests with 1 to 500 inputs.
+ * Run with {@code mvn -Pjmh test-compile exec:exec}, which adds the GC profiler for allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SigningUtilsBenchmark {
+
+    static final String PIN = "bc4779ff545bc04a54e6c32b7609a91b";
+    static final String ENCRYPTED_PASSPHRASE = "x1pjDH1ptfB4uKRAF4k9HThMEckOA0loBOrhmXOLt51iSHZm5qS9cX8HqDm6dGliByLbcgT+kmGDuNcVhwP/S2pqQ2LXkV2iERRQmq4E5rY=";
+    static final String DATA_TO_SIGN = "695369676e65645468697344617461546861744973323536426974734c6f6e67";
+
+    @State(Scope.Benchmark)
+    public static class Keys {
+        byte[] encryptedPassphrase;
+        byte[] aesKey;
+        byte[] seed;
+        byte[] privKey;
+        String privKeyHex;
+
+        @Setup
+        public void setup() throws Exception {
+            encryptedPassphrase = Base64.decode(ENCRYPTED_PASSPHRASE);
+            aesKey = SigningUtils.pinToKey(PIN);
+            seed = SigningUtils.fromHex(new String(SigningUtils.decryptPassphrase(encryptedPassphrase, aesKey), "UTF-8"));
+            privKey = SigningUtils.getPrivKey(seed);
+            privKeyHex = SigningUtils.toHex(privKey);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Engine {
+        @Param({"bouncycastle", "secp256k1"})
+        public String engine;
+
+        SigningEngine signingEngine;
+
+        @Setup
+        public void setup() {
+            signingEngine = engine(engine);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Request {
+        @Param({"1", "10", "100", "500"})
+        public int inputs;
+
+        @Param({"bouncycastle", "secp256k1"})
+        public String engine;
+
+        WithdrawSignRequest request;
+        SigningEngine signingEngine;
+
+        @Setup
+        public void setup() throws Exception {
+            signingEngine = engine(engine);
+            String json = new String(Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_request.json").toURI())), "UTF-8");
+            Gson gson = ModelTypeAdapters.createGson();
+            request = gson.fromJson(json, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+
+            // Copies of the single input in the fixture, each with its own data to sign
+            Input template = request.inputs.get(0);
+            for (int i = 1; i < inputs; i++) {
+                Input input = gson.fromJson(gson.toJson(template), Input.class);
+                input.inputNo = i;
+                input.dataToSign = SigningUtils.toHex(SigningUtils.getPrivKey(new byte[]{(byte) i, (byte) (i >>> 8)}));
+                request.inputs.add(input);
+            }
+        }
+    }
+
+    private static SigningEngine engine(String name) {
+        return "secp256k1".equals(name) ? new Secp256k1SigningEngine() : new BouncyCastleSigningEngine();
+    }
+
+    @Benchmark
+    public byte[] pinToKey() {
+        return SigningUtils.pinToKey(PIN);
+    }
+
+    @Benchmark
+    public byte[] decryptPassphrase(Keys keys) throws BlockIOException {
+        return SigningUtils.decryptPassphrase(keys.encryptedPassphrase, keys.aesKey);
+    }
+
+    @Benchmark
+    public byte[] getPrivKey(Keys keys) {
+        return SigningUtils.getPrivKey(keys.seed);
+    }
+
+    @Benchmark
+    public byte[] derivePublicKey(Keys keys, Engine engine) throws BlockIOException {
+        return engine.signingEngine.publicKey(keys.privKey);
+    }
+
+    @Benchmark
+    public String signData(Keys keys, Engine engine) throws BlockIOException {
+        return SigningUtils.signData(DATA_TO_SIGN, keys.privKey, engine.signingEngine);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String toHex(Keys keys) {
+        return SigningUtils.toHex(keys.privKey);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public byte[] fromHex(Keys keys) {
+        return SigningUtils.fromHex(keys.privKeyHex);
+    }
+
+    /**
+     * The whole request: PIN to key, decryption, key derivation and one signature per input. Signing overwrites the
+     * signed data of the previous invocation, so the request is reused as is.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public WithdrawSignRequest signWithdrawalRequest(Request request) throws BlockIOException {
+        return SigningUtils.signWithdrawalRequest(request.request, PIN, null, null, request.signingEngine);
+    }
+}
@@ -0,0 +1,268 @@
+package io.block.api;
+
+import io.block.api.model.AddressBalances;
+import io.block.api.model.Balance;
+import io.block.api.model.GreenAddress;
+import io.block.api.model.GreenAddresses;
+import io.block.api.utils.BlockIOException;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Collects single-address lookups from many threads and sends them as one multi-address API call. <br>
+ * A batch is sent once the first request in it has waited for the batching window, or as soon as it holds
+ * the maximum number of addresses. Each caller gets a future completed with its own part of the result.
+ * If the API rejects a batched call, e.g. because one of the addresses is not part of the account, its addresses
+ * are retried one by one so that only the offending lookups fail. Transport errors fail the whole batch, so an
+ * unreachable API is not hit with one request per address.
+ */
+public class AddressBatcher implements Closeable {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final BlockIO api;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final BatchQueue<Balance> balances = new BatchQueue<Balance>() {
+        @Override
+        Map<String, Balance> fetch(String[] addresses) throws BlockIOException {
+            AddressBalances result = api.getAddressBalancesByAddress(addresses);
+            Map<String, Balance> byAddress = new HashMap<String, Balance>();
+            if (result.balances != null) {
+                for (Balance balance : result.balances) {
+                    byAddress.put(balance.address, balance);
+                }
+            }
+            return byAddress;
+        }
+    };
+
+    private final BatchQueue<Boolean> greenStatus = new BatchQueue<Boolean>() {
+        @Override
+        Map<String, Boolean> fetch(String[] addresses) throws BlockIOException {
+            GreenAddresses result = api.isGreenAddress(addresses);
+            Map<String, Boolean> byAddress = new HashMap<String, Boolean>();
+            for (String address : addresses) {
+                byAddress.put(address, Boolean.FALSE);
+            }
+            if (result.greenAddresses != null) {
+                for (GreenAddress green : result.greenAddresses) {
+                    byAddress.put(green.address, Boolean.TRUE);
+                }
+            }
+            return byAddress;
+        }
+    };
+
+    public AddressBatcher(BlockIO api) {
+        this(api, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param api The client to send the batched calls with
+     * @param windowMillis How long the first lookup of a batch waits for others to join it
+     * @param maxBatchSize Maximum number of addresses per API call
+     */
+    public AddressBatcher(BlockIO api, long windowMillis, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be at least 1.");
+        }
+        this.api = api;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blockio-address-batcher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Requests the balance of a single address as part of the next batch
+     * @param address An address of the account associated with the client's API key
+     * @return A future completed with the {@link io.block.api.model.Balance} of the address
+     */
+    public CompletableFuture<Balance> getAddressBalance(String address) {
+        return balances.add(address);
+    }
+
+    /**
+     * Checks a single address for being a Block.io Green Address as part of the next batch
+     * @param address The address to check
+     * @return A future completed with true if the address is green
+     */
+    public CompletableFuture<Boolean> isGreenAddress(String address) {
+        return greenStatus.add(address);
+    }
+
+    /**
+     * Sends all pending lookups right away and stops the batching timer. Lookups added afterwards are sent immediately.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        balances.flush();
+        greenStatus.flush();
+    }
+
+    private abstract class BatchQueue<V> {
+        private LinkedHashMap<String, CompletableFuture<V>> pending = new LinkedHashMap<String, CompletableFuture<V>>();
+        /**
+         * Number of the pending batch, so that the window timer of a batch that was sent early leaves the next one alone
+         */
+        private long batchNumber;
+        private ScheduledFuture<?> windowTimer;
+
+        abstract Map<String, V> fetch(String[] addresses) throws BlockIOException;
+
+        CompletableFuture<V> add(String address) {
+            if (address == null || address.equals("")) {
+                throw new IllegalArgumentException("You have to provide a valid address.");
+            }
+
+            CompletableFuture<V> future;
+            boolean first;
+            final long number;
+            synchronized (this) {
+                future = pending.get(address);
+                if (future != null) {
+                    // Same address requested twice within the window, both callers share the lookup
+                    return future;
+                }
+                future = new CompletableFuture<V>();
+                pending.put(address, future);
+                if (pending.size() >= maxBatchSize) {
+                    // Sent under the lock, so no other lookup can join a full batch
+                    flush();
+                    return future;
+                }
+                first = pending.size() == 1;
+                number = batchNumber;
+            }
+
+            if (first) {
+                try {
+                    ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush(number);
+                        }
+                    }, windowMillis, TimeUnit.MILLISECONDS);
+                    synchronized (this) {
+                        if (batchNumber == number) {
+                            windowTimer = timer;
+                            return future;
+                        }
+                    }
+                    // Already sent for being full
+                    timer.cancel(false);
+                } catch (RejectedExecutionException e) {
+                    // Closed, don't wait for others
+                    flush();
+                }
+            }
+            return future;
+        }
+
+        void flush() {
+            dispatch(takePending());
+        }
+
+        /**
+         * Sends the batch with the given number, unless it has already been sent
+         */
+        private void flush(long number) {
+            final Map<String, CompletableFuture<V>> batch;
+            synchronized (this) {
+                if (batchNumber != number) {
+                    return;
+                }
+                batch = takePending();
+            }
+            dispatch(batch);
+        }
+
+        private synchronized Map<String, CompletableFuture<V>> takePending() {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            Map<String, CompletableFuture<V>> batch = pending;
+            pending = new LinkedHashMap<String, CompletableFuture<V>>();
+            batchNumber++;
+            if (windowTimer != null) {
+                windowTimer.cancel(false);
+                windowTimer = null;
+            }
+            return batch;
+        }
+
+        private void dispatch(final Map<String, CompletableFuture<V>> batch) {
+            if (batch == null) {
+                return;
+            }
+
+            try {
+                api.executor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        send(batch, true);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failAll(batch, new BlockIOException("Client is closed."));
+            }
+        }
+
+        private void send(Map<String, CompletableFuture<V>> batch, boolean retrySingly) {
+            Map<String, V> results;
+            try {
+                results = fetch(batch.keySet().toArray(new String[batch.size()]));
+            } catch (BlockIOException | RuntimeException e) {
+                if (retrySingly && batch.size() > 1 && BlockIO.isApiError(e)) {
+                    for (Map.Entry<String, CompletableFuture<V>> entry : batch.entrySet()) {
+                        final Map<String, CompletableFuture<V>> single = new HashMap<String, CompletableFuture<V>>(1);
+                        single.put(entry.getKey(), entry.getValue());
+                        try {
+                            api.executor().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    send(single, false);
+                                }
+                            });
+                        } catch (RejectedExecutionException closed) {
+                            failAll(single, e);
+                        }
+                    }
+                } else {
+                    failAll(batch, e);
+                }
+                return;
+            }
+
+            for (Map.Entry<String, CompletableFuture<V>> entry : batch.entrySet()) {
+                V result = results.get(entry.getKey());
+                if (result != null) {
+                    entry.getValue().complete(result);
+                } else {
+                    entry.getValue().completeExceptionally(new BlockIOException("API returned no result for address " + entry.getKey()));
+                }
+            }
+        }
+
+        private void failAll(Map<String, CompletableFuture<V>> batch, Exception e) {
+            for (CompletableFuture<V> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
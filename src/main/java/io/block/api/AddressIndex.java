@@ -0,0 +1,314 @@
+package io.block.api;
+
+import io.block.api.model.Address;
+import io.block.api.model.NewAddress;
+import io.block.api.utils.BlockIOException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Local index of the addresses of the account, for label, address and user ID lookups without an API call. <br>
+ * The index is filled from {@link BlockIO#visitAccountAddresses(ElementVisitor)} and refreshed in the background.
+ * Addresses created through the client's {@link BlockIO#getNewAddress(String)} are added right away. With a snapshot
+ * file, the index is loaded from the file at startup, so lookups work before the first refresh. The file is written
+ * again after every refresh and on {@link #close()}. Addresses created elsewhere, e.g. on the website, are found
+ * after the next refresh. A client feeds one index at a time, the last one created for it. Thread-safe.
+ */
+public class AddressIndex implements Closeable {
+
+    public static final long DEFAULT_REFRESH_MILLIS = 10 * 60 * 1000;
+
+    private static final int MAGIC = 0x4249414a; // "BIAI"
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * The three maps of one generation of the index. Refreshes build new maps and swap them in as a whole.
+     */
+    private static class Maps {
+        final ConcurrentHashMap<String, String> addressByLabel;
+        final ConcurrentHashMap<String, String> labelByAddress;
+        final ConcurrentHashMap<Integer, String> addressByUserID;
+
+        Maps(int expected) {
+            addressByLabel = new ConcurrentHashMap<String, String>(expected);
+            labelByAddress = new ConcurrentHashMap<String, String>(expected);
+            addressByUserID = new ConcurrentHashMap<Integer, String>(expected);
+        }
+
+        void put(int userID, String address, String label) {
+            if (address == null) {
+                return;
+            }
+            addressByUserID.put(userID, address);
+            if (label != null) {
+                addressByLabel.put(label, address);
+                labelByAddress.put(address, label);
+            }
+        }
+    }
+
+    private final BlockIO api;
+    private final Path snapshot;
+    private final ScheduledExecutorService scheduler;
+    /**
+     * Held for a whole refresh and for writing the snapshot, so refreshes run one after another and an older
+     * download never replaces the maps or the snapshot of a newer one
+     */
+    private final Object refreshLock = new Object();
+
+    private volatile Maps maps = new Maps(16);
+    private boolean dirty;
+    /**
+     * Addresses added while a refresh is downloading, applied to its result so they are not lost. Null between refreshes.
+     */
+    private List<NewAddress> addedDuringRefresh;
+
+    public AddressIndex(BlockIO api) throws IOException {
+        this(api, null, DEFAULT_REFRESH_MILLIS);
+    }
+
+    /**
+     * Loads the snapshot, if there is one, and starts refreshing from the API in the background right away and then
+     * periodically
+     * @param api The client to refresh the index with
+     * @param snapshot File the index is persisted to, null to keep it in memory only
+     * @param refreshMillis Time between background refreshes, 0 to only refresh on {@link #refresh()}
+     * @throws IOException If the snapshot exists but can't be read
+     */
+    public AddressIndex(BlockIO api, Path snapshot, long refreshMillis) throws IOException {
+        this.api = api;
+        this.snapshot = snapshot;
+        if (snapshot != null && Files.exists(snapshot)) {
+            maps = load(snapshot);
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blockio-address-index");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        Runnable backgroundRefresh = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refresh();
+                } catch (BlockIOException | IOException | RuntimeException e) {
+                    // Keep serving the current index, the next refresh tries again
+                }
+            }
+        };
+        if (refreshMillis > 0) {
+            scheduler.scheduleWithFixedDelay(backgroundRefresh, 0, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+        // Last, so the client never sees a partly constructed index
+        api.setAddressIndex(this);
+    }
+
+    /**
+     * @param label A label of the account
+     * @return The address with the label, or null if it is not in the index
+     */
+    public String getAddressByLabel(String label) {
+        return maps.addressByLabel.get(label);
+    }
+
+    /**
+     * @param address An address of the account
+     * @return The label of the address, or null if it is not in the index or has no label
+     */
+    public String getLabel(String address) {
+        return maps.labelByAddress.get(address);
+    }
+
+    /**
+     * @param userID A user ID of the account
+     * @return The address of the user ID, or null if it is not in the index
+     */
+    public String getAddressByUserID(int userID) {
+        return maps.addressByUserID.get(userID);
+    }
+
+    /**
+     * @return Number of addresses in the index
+     */
+    public int size() {
+        return maps.addressByUserID.size();
+    }
+
+    /**
+     * Downloads all addresses of the account, streaming them into a new index that replaces the current one, and
+     * writes the snapshot. Waits for a refresh that is already running.
+     * @throws BlockIOException
+     * @throws IOException If the snapshot can't be written
+     */
+    public void refresh() throws BlockIOException, IOException {
+        synchronized (refreshLock) {
+            synchronized (this) {
+                addedDuringRefresh = new ArrayList<NewAddress>();
+            }
+
+            final Maps fresh = new Maps(Math.max(16, size()));
+            try {
+                api.visitAccountAddresses(new ElementVisitor<Address>() {
+                    @Override
+                    public void visit(Address address) {
+                        fresh.put(address.userID, address.address, address.label);
+                    }
+                });
+            } catch (BlockIOException | RuntimeException e) {
+                synchronized (this) {
+                    addedDuringRefresh = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                for (NewAddress added : addedDuringRefresh) {
+                    fresh.put(added.userId, added.address, added.label);
+                }
+                addedDuringRefresh = null;
+                maps = fresh;
+                dirty = true;
+            }
+            save();
+        }
+    }
+
+    /**
+     * Adds an address created through the client. Called by {@link BlockIO#getNewAddress(String)}.
+     */
+    synchronized void add(NewAddress address) {
+        if (address == null) {
+            return;
+        }
+        maps.put(address.userId, address.address, address.label);
+        if (addedDuringRefresh != null) {
+            addedDuringRefresh.add(address);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Stops refreshing and writes the snapshot if the index changed since it was last written
+     */
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        api.clearAddressIndex(this);
+        synchronized (refreshLock) {
+            save();
+        }
+    }
+
+    /**
+     * Must hold {@link #refreshLock}
+     */
+    private void save() throws IOException {
+        Maps current;
+        synchronized (this) {
+            if (snapshot == null || !dirty) {
+                return;
+            }
+            current = maps;
+            dirty = false;
+        }
+        try {
+            write(snapshot, current);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                dirty = true;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Snapshot layout: magic, version and entry count, then per entry the user ID and the length-prefixed UTF-8 bytes
+     * of address and label. A label length of -1 stands for no label.
+     */
+    private static void write(Path file, Maps maps) throws IOException {
+        List<byte[]> addresses = new ArrayList<byte[]>(maps.addressByUserID.size());
+        List<byte[]> labels = new ArrayList<byte[]>(maps.addressByUserID.size());
+        List<Integer> userIDs = new ArrayList<Integer>(maps.addressByUserID.size());
+        long length = 12;
+        for (Map.Entry<Integer, String> entry : maps.addressByUserID.entrySet()) {
+            String label = maps.labelByAddress.get(entry.getValue());
+            byte[] address = entry.getValue().getBytes(UTF_8);
+            byte[] labelBytes = label != null ? label.getBytes(UTF_8) : null;
+            userIDs.add(entry.getKey());
+            addresses.add(address);
+            labels.add(labelBytes);
+            length += 4 + 4 + address.length + 4 + (labelBytes != null ? labelBytes.length : 0);
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Address index is too large for a snapshot.");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) length);
+        out.putInt(MAGIC).putInt(VERSION).putInt(userIDs.size());
+        for (int i = 0; i < userIDs.size(); i++) {
+            out.putInt(userIDs.get(i));
+            out.putInt(addresses.get(i).length).put(addresses.get(i));
+            byte[] label = labels.get(i);
+            out.putInt(label != null ? label.length : -1);
+            if (label != null) {
+                out.put(label);
+            }
+        }
+        out.flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Maps load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IOException("Not an address index snapshot: " + file);
+            }
+            int count = in.getInt();
+            Maps maps = new Maps(Math.max(16, count));
+            try {
+                for (int i = 0; i < count; i++) {
+                    int userID = in.getInt();
+                    String address = string(in, in.getInt());
+                    int labelLength = in.getInt();
+                    maps.put(userID, address, labelLength >= 0 ? string(in, labelLength) : null);
+                }
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt address index snapshot: " + file);
+            }
+            return maps;
+        }
+    }
+
+    private static String string(ByteBuffer in, int length) {
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
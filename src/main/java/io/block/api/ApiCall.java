@@ -0,0 +1,18 @@
+package io.block.api;
+
+import io.block.api.utils.BlockIOException;
+
+/**
+ * A single API call to be run by {@link io.block.api.BlockIO#executeAll(java.util.List)}
+ * @param <T> Type of the call's result
+ */
+public interface ApiCall<T> {
+
+    /**
+     * Runs the call
+     * @param api The client executing the call
+     * @return The result of the call
+     * @throws BlockIOException
+     */
+    T call(BlockIO api) throws BlockIOException;
+}
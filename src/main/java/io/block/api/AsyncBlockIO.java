@@ -0,0 +1,328 @@
+package io.block.api;
+
+import io.block.api.model.*;
+import io.block.api.utils.BlockIOException;
+import io.block.api.utils.Constants;
+import io.block.api.utils.PreparedPin;
+import io.block.api.utils.SigningUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking variant of {@link io.block.api.BlockIO}. Obtain it via {@link BlockIO#async()}. <br>
+ * Every method returns immediately with a {@link java.util.concurrent.CompletableFuture} that is completed once the
+ * response has arrived. Failures complete the future exceptionally with a {@link io.block.api.utils.BlockIOException}
+ * as cause. Invalid arguments are still rejected right away with an {@link java.lang.IllegalArgumentException}. <br>
+ * Requests run on {@link io.block.api.transport.Transport#executeAsync(io.block.api.transport.TransportRequest)}
+ * of the client's transport. Non-async continuations may run on its I/O dispatcher threads, so use the
+ * {@code *Async} variants of {@link java.util.concurrent.CompletableFuture} for anything expensive.
+ */
+public class AsyncBlockIO {
+
+    private final BlockIO api;
+
+    AsyncBlockIO(BlockIO api) {
+        this.api = api;
+    }
+
+    /**
+     * @see BlockIO#getAccountBalance()
+     */
+    public CompletableFuture<AccountBalance> getAccountBalance() {
+        return doApiCall(Constants.Methods.GET_ACCOUNT_BALANCE, null, Response.ResponseAccountBalance.class)
+                .thenApply(response -> response.accountBalance);
+    }
+
+    /**
+     * @see BlockIO#getNewAddress(String)
+     */
+    public CompletableFuture<NewAddress> getNewAddress(String label) {
+        HashMap<String, String> params = BlockIO.optionalParam(Constants.Params.LABEL, label);
+        return doApiCall(Constants.Methods.GET_NEW_ADDRESS, params, Response.ResponseNewAddress.class)
+                .thenApply(response -> api.indexed(response.newAddress));
+    }
+
+    /**
+     * @see BlockIO#getAccountAddresses()
+     */
+    public CompletableFuture<AccountAddresses> getAccountAddresses() {
+        return doApiCall(Constants.Methods.GET_MY_ADDRESSES, null, Response.ResponseAccountAddresses.class)
+                .thenApply(response -> response.accountAddresses);
+    }
+
+    /**
+     * @see BlockIO#getAddressBalancesByAddress(String[])
+     */
+    public CompletableFuture<AddressBalances> getAddressBalancesByAddress(String[] addresses) {
+        return fanOut(addresses, "address", chunk -> addressBalances(Constants.Params.ADDRS, chunk))
+                .thenApply(BlockIO::mergeAddressBalances);
+    }
+
+    /**
+     * @see BlockIO#getAddressBalancesByLabels(String[])
+     */
+    public CompletableFuture<AddressBalances> getAddressBalancesByLabels(String[] labels) {
+        return fanOut(labels, "label", chunk -> addressBalances(Constants.Params.LABELS, chunk))
+                .thenApply(BlockIO::mergeAddressBalances);
+    }
+
+    private CompletableFuture<AddressBalances> addressBalances(String paramName, String[] chunk) {
+        HashMap<String, String> params = BlockIO.listParam(paramName, chunk, "address");
+        return doApiCall(Constants.Methods.GET_ADDR_BALANCE, params, Response.ResponseAddressBalances.class)
+                .thenApply(response -> response.addressBalances);
+    }
+
+    /**
+     * @see BlockIO#getAddressByLabel(String)
+     */
+    public CompletableFuture<AddressByLabel> getAddressByLabel(String label) {
+        HashMap<String, String> params = BlockIO.labelParam(label);
+        return doApiCall(Constants.Methods.GET_ADDR_BY_LABEL, params, Response.ResponseAddressByLabel.class)
+                .thenApply(response -> response.addressByLabel);
+    }
+
+    /**
+     * @see BlockIO#withdrawToAddress(String, double, String)
+     */
+    public CompletableFuture<Withdrawal> withdrawToAddress(String address, double amount, String secretPin) {
+        return withdrawToAddress(address, FixedAmount.of(amount), secretPin);
+    }
+
+    /**
+     * @see BlockIO#withdrawToAddress(String, FixedAmount, String)
+     */
+    public CompletableFuture<Withdrawal> withdrawToAddress(String address, FixedAmount amount, String secretPin) {
+        HashMap<String, FixedAmount> target = new HashMap<String, FixedAmount>(1);
+        target.put(address, amount);
+        return withdraw(null, null, target, BlockIO.ParamType.ADDRS, secretPin);
+    }
+
+    /**
+     * Both phases of the withdrawal are chained without blocking. The PIN's key is derived while the sign request is
+     * on the wire, signing the request is CPU bound and runs on the common {@link java.util.concurrent.ForkJoinPool}.
+     * @see BlockIO#withdraw(String[], BlockIO.ParamType, java.util.Map, BlockIO.ParamType, String)
+     */
+    public CompletableFuture<Withdrawal> withdraw(String[] sources, BlockIO.ParamType sourceType, Map<String, ? extends Number> targetsAndAmounts, BlockIO.ParamType targetType, final String secretPin) {
+        BlockIO.checkWithdrawalArgs(targetsAndAmounts, secretPin);
+
+        HashMap<String, String> params;
+        String method;
+        try {
+            params = BlockIO.setupWithdrawalParams(targetsAndAmounts, targetType);
+            method = BlockIO.setupWithdrawalSources(sources, sourceType, params);
+        } catch (BlockIOException e) {
+            return failed(e);
+        }
+
+        final long journalID;
+        try {
+            journalID = api.journalStarted(method, params);
+        } catch (BlockIOException e) {
+            return failed(e);
+        }
+
+        final PreparedPin pin = api.preparePin(secretPin);
+        return doPostApiCall(method, params, Response.ResponseWithdrawSignRequest.class)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        pin.wipe();
+                    }
+                })
+                .thenApplyAsync(response -> {
+                    try {
+                        api.journalSignRequested(journalID, response.withdrawSignRequest);
+                        WithdrawSignRequest signedRequest = SigningUtils.signWithdrawalRequest(response.withdrawSignRequest, pin, api.keyCache(), api.config().signingExecutor, api.config().signingEngine);
+                        return api.journalSigned(journalID, signedRequest);
+                    } catch (BlockIOException e) {
+                        throw new CompletionException(e);
+                    }
+                })
+                .whenComplete((finalParams, error) -> {
+                    if (error != null) {
+                        // Nothing was sent for finalization yet
+                        api.journalFailed(journalID, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                    }
+                })
+                .thenCompose(finalParams -> doPostApiCall(Constants.Methods.WITHDRAW_DO_FINAL, finalParams, Response.ResponseWithdrawal.class))
+                .thenApply(response -> {
+                    api.journalFinalized(journalID, response.withdrawal);
+                    return response.withdrawal;
+                });
+    }
+
+    /**
+     * @see BlockIO#getPrices(String)
+     */
+    public CompletableFuture<Prices> getPrices(String baseCurrency) {
+        HashMap<String, String> params = BlockIO.optionalParam(Constants.Params.PRICE_BASE, baseCurrency);
+        return doApiCall(Constants.Methods.GET_PRICES, params, Response.ResponsePrices.class)
+                .thenApply(response -> response.prices);
+    }
+
+    /**
+     * @see BlockIO#isGreenAddress(String[])
+     */
+    public CompletableFuture<GreenAddresses> isGreenAddress(String[] addresses) {
+        return fanOut(addresses, "address", chunk -> {
+            HashMap<String, String> params = BlockIO.listParam(Constants.Params.ADDRS, chunk, "address");
+            return doApiCall(Constants.Methods.IS_GREEN_ADDR, params, Response.ResponseGreenAddresses.class)
+                    .thenApply(response -> response.greenAddresses);
+        }).thenApply(BlockIO::mergeGreenAddresses);
+    }
+
+    /**
+     * @see BlockIO#isGreenTransaction(String[])
+     */
+    public CompletableFuture<GreenTransactions> isGreenTransaction(String[] txIDs) {
+        return fanOut(txIDs, "transaction ID", chunk -> {
+            HashMap<String, String> params = BlockIO.listParam(Constants.Params.TX_IDS, chunk, "transaction ID");
+            return doApiCall(Constants.Methods.IS_GREEN_TX, params, Response.ResponseGreenTransactions.class)
+                    .thenApply(response -> response.greenTransactions);
+        }).thenApply(BlockIO::mergeGreenTransactions);
+    }
+
+    /**
+     * Runs a request per chunk of the given values, at most {@link io.block.api.ClientConfig#bulkConcurrency} at a time
+     * like {@link BlockIO#executeAll(java.util.List)}. Each finished request starts the next chunk.
+     * @return A future completed with the results of all chunks in order, or exceptionally with the first failure
+     */
+    private <T> CompletableFuture<List<T>> fanOut(String[] values, String what, Function<String[], CompletableFuture<T>> call) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("You have to provide at least one " + what + ".");
+        }
+
+        final List<String[]> chunks = BlockIO.chunk(values, api.config().maxItemsPerRequest);
+        final List<CompletableFuture<T>> parts = new ArrayList<CompletableFuture<T>>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            parts.add(new CompletableFuture<T>());
+        }
+        final AtomicInteger next = new AtomicInteger();
+        int inFlight = Math.min(Math.max(1, api.config().bulkConcurrency), chunks.size());
+        for (int i = 0; i < inFlight; i++) {
+            startNext(chunks, parts, next, call);
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture[parts.size()])).thenApply(ignored -> {
+            List<T> results = new ArrayList<T>(parts.size());
+            for (CompletableFuture<T> part : parts) {
+                results.add(part.join());
+            }
+            return results;
+        });
+    }
+
+    /**
+     * Starts the request of the next chunk not yet started, if any, and once it finishes the one after that
+     */
+    private static <T> void startNext(List<String[]> chunks, List<CompletableFuture<T>> parts, AtomicInteger next,
+                                      Function<String[], CompletableFuture<T>> call) {
+        int index = next.getAndIncrement();
+        if (index >= chunks.size()) {
+            return;
+        }
+        final CompletableFuture<T> part = parts.get(index);
+        CompletableFuture<T> request;
+        try {
+            request = call.apply(chunks.get(index));
+        } catch (RuntimeException e) {
+            request = new CompletableFuture<T>();
+            request.completeExceptionally(e);
+        }
+        request.whenComplete((value, error) -> {
+            if (error != null) {
+                part.completeExceptionally(error);
+            } else {
+                part.complete(value);
+            }
+            startNext(chunks, parts, next, call);
+        });
+    }
+
+    /**
+     * @see BlockIO#getTransactionsReceived(String)
+     */
+    public CompletableFuture<TransactionsReceived> getTransactionsReceived(String beforeTX) {
+        return transactionsReceived(null, null, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsReceivedByAddress(String[], String)
+     */
+    public CompletableFuture<TransactionsReceived> getTransactionsReceivedByAddress(String[] addresses, String beforeTX) {
+        return transactionsReceived(addresses, Constants.Params.ADDRS, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsReceivedByLabel(String[], String)
+     */
+    public CompletableFuture<TransactionsReceived> getTransactionsReceivedByLabel(String[] labels, String beforeTX) {
+        return transactionsReceived(labels, Constants.Params.LABELS, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsReceivedByUserID(String[], String)
+     */
+    public CompletableFuture<TransactionsReceived> getTransactionsReceivedByUserID(String[] userIDs, String beforeTX) {
+        return transactionsReceived(userIDs, Constants.Params.USER_IDS, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsSent(String)
+     */
+    public CompletableFuture<TransactionsSent> getTransactionsSent(String beforeTX) {
+        return transactionsSent(null, null, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsSentByAddress(String[], String)
+     */
+    public CompletableFuture<TransactionsSent> getTransactionsSentByAddress(String[] addresses, String beforeTX) {
+        return transactionsSent(addresses, Constants.Params.ADDRS, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsSentByLabel(String[], String)
+     */
+    public CompletableFuture<TransactionsSent> getTransactionsSentByLabel(String[] labels, String beforeTX) {
+        return transactionsSent(labels, Constants.Params.LABELS, beforeTX);
+    }
+
+    /**
+     * @see BlockIO#getTransactionsSentByUserID(String[], String)
+     */
+    public CompletableFuture<TransactionsSent> getTransactionsSentByUserID(String[] userIDs, String beforeTX) {
+        return transactionsSent(userIDs, Constants.Params.USER_IDS, beforeTX);
+    }
+
+    CompletableFuture<TransactionsReceived> transactionsReceived(String[] whatFor, String typeOfParams, String beforeTx) {
+        HashMap<String, String> params = BlockIO.transactionParams(whatFor, typeOfParams, beforeTx, Constants.Values.TYPE_RECEIVED);
+        return doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsReceived.class)
+                .thenApply(response -> response.transactionsReceived);
+    }
+
+    CompletableFuture<TransactionsSent> transactionsSent(String[] whatFor, String typeOfParams, String beforeTx) {
+        HashMap<String, String> params = BlockIO.transactionParams(whatFor, typeOfParams, beforeTx, Constants.Values.TYPE_SENT);
+        return doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsSent.class)
+                .thenApply(response -> response.transactionsSent);
+    }
+
+    private <T extends Response> CompletableFuture<T> doApiCall(String method, Map<String, String> params, Class<T> responseType) {
+        return api.doApiCallAsync(method, params, responseType).thenApply(responseType::cast);
+    }
+
+    private <T extends Response> CompletableFuture<T> doPostApiCall(String method, Map<String, String> params, Class<T> responseType) {
+        return api.doPostApiCallAsync(method, params, responseType).thenApply(responseType::cast);
+    }
+
+    private static <T> CompletableFuture<T> failed(BlockIOException e) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(e);
+        return future;
+    }
+}
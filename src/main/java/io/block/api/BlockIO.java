@@ -1,37 +1,274 @@
 package io.block.api;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.block.api.model.*;
+import io.block.api.transport.HttpClientTransport;
+import io.block.api.transport.Transport;
+import io.block.api.transport.TransportRequest;
+import io.block.api.transport.TransportResponse;
 import io.block.api.utils.BlockIOException;
 import io.block.api.utils.Constants;
+import io.block.api.utils.KeyCache;
+import io.block.api.utils.ModelTypeAdapters;
+import io.block.api.utils.PreparedPin;
 import io.block.api.utils.SigningUtils;
+import org.apache.http.Consts;
 import org.apache.http.HttpStatus;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.entity.UrlEncodedFormEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.util.EntityUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.net.URISyntaxException;
-import java.text.NumberFormat;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class BlockIO {
+/**
+ * Client for the block.io API. <br>
+ * All calls share one {@link io.block.api.transport.Transport} with its pool of keep-alive connections, so a single
+ * instance should be created and reused for the lifetime of the application. Instances are thread-safe.
+ * Call {@link #close()} when done to release the pooled connections.
+ */
+public class BlockIO implements Closeable {
+
+    // Immutable and thread-safe, shared by all clients. Models are bound by hand-written adapters instead of reflection.
+    static final Gson GSON = ModelTypeAdapters.createGson();
+    static final String API_ERROR = "API returned error: ";
 
     private String apiKey;
+    private final ClientConfig config;
+    private final Transport transport;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Response>> inFlightReads = new ConcurrentHashMap<String, CompletableFuture<Response>>();
+
+    private final ResponseCache cache;
+    private final KeyCache keyCache;
+
+    private AsyncBlockIO async;
+    private ExecutorService executor;
+    private volatile AddressIndex addressIndex;
 
-    private enum ParamType{
+    public enum ParamType{
         ADDRS, LABELS, USERIDS
     }
 
     public BlockIO(String apiKey) {
+        this(apiKey, new ClientConfig());
+    }
+
+    /**
+     * Creates a client with custom connection settings
+     * @param apiKey Your block.io API key
+     * @param config A {@link io.block.api.ClientConfig} holding the connection pool and timeout settings
+     */
+    public BlockIO(String apiKey, ClientConfig config) {
+        this(apiKey, config, new HttpClientTransport(config));
+    }
+
+    /**
+     * Creates a client on top of a custom HTTP layer
+     * @param apiKey Your block.io API key
+     * @param config A {@link io.block.api.ClientConfig} holding the client settings
+     * @param transport The {@link io.block.api.transport.Transport} to send requests with. It is closed together with this client.
+     */
+    public BlockIO(String apiKey, ClientConfig config, Transport transport) {
         this.apiKey = apiKey;
+        this.config = config.copy();
+        this.transport = transport;
+        this.cache = this.config.cacheTtlMillis.isEmpty() ? null : new ResponseCache(this.config.cacheTtlMillis, this.config.cacheMaxEntries);
+        this.keyCache = this.config.keyCacheTtlMillis > 0 ? new KeyCache(this.config.keyCacheTtlMillis, this.config.keyCacheMaxUses) : null;
+    }
+
+    /**
+     * Wipes cached keys and shuts down the transport of this client. The client must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        zeroizeKeys();
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        transport.close();
+    }
+
+    /**
+     * Wipes all keys cached for withdrawals, see {@link io.block.api.ClientConfig#keyCacheTtlMillis}.
+     * The next withdrawal derives its key from the secret PIN again.
+     */
+    public void zeroizeKeys() {
+        if (keyCache != null) {
+            keyCache.zeroize();
+        }
+    }
+
+    /**
+     * Returns the counters of the response cache, see {@link io.block.api.ClientConfig#cacheTtlMillis}
+     * @return A {@link io.block.api.CacheStats} snapshot. All zero if caching is disabled.
+     */
+    public CacheStats getCacheStats() {
+        return cache != null ? cache.stats() : new CacheStats(0, 0, 0, 0);
+    }
+
+    /**
+     * Drops all cached responses. Use this if the account was changed by something other than this client.
+     */
+    public void invalidateCache() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Drops all cached responses of the given API methods
+     * @param methods API methods, see {@link io.block.api.utils.Constants.Methods}
+     */
+    public void invalidateCache(String... methods) {
+        if (cache != null) {
+            cache.invalidate(methods);
+        }
+    }
+
+    /**
+     * Returns the non-blocking variant of this client. It shares API key and transport with this client.
+     * @return The {@link io.block.api.AsyncBlockIO} facade belonging to this client
+     */
+    public synchronized AsyncBlockIO async() {
+        if (async == null) {
+            async = new AsyncBlockIO(this);
+        }
+        return async;
+    }
+
+    /**
+     * Runs the given calls concurrently, at most {@link io.block.api.ClientConfig#bulkConcurrency} at a time,
+     * and waits for all of them to finish. On Java 21 and later every call runs on its own virtual thread.
+     * @param calls The calls to run
+     * @return One {@link io.block.api.BulkResult} per call, in the same order as the calls
+     * @throws BlockIOException If the calling thread was interrupted while waiting
+     */
+    public <T> List<BulkResult<T>> executeAll(List<? extends ApiCall<? extends T>> calls) throws BlockIOException {
+        return executeAll(calls, config.bulkConcurrency);
+    }
+
+    /**
+     * Runs the given calls concurrently, at most maxConcurrency at a time, and waits for all of them to finish.
+     * A failing call does not affect the others, its error is reported in its {@link io.block.api.BulkResult}.
+     * @param calls The calls to run
+     * @param maxConcurrency Maximum number of calls in flight at the same time
+     * @return One {@link io.block.api.BulkResult} per call, in the same order as the calls
+     * @throws BlockIOException If the calling thread was interrupted while waiting
+     */
+    public <T> List<BulkResult<T>> executeAll(List<? extends ApiCall<? extends T>> calls, int maxConcurrency) throws BlockIOException {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1.");
+        }
+
+        final Semaphore permits = new Semaphore(maxConcurrency);
+        List<Future<? extends T>> futures = new ArrayList<Future<? extends T>>(calls.size());
+        try {
+            for (final ApiCall<? extends T> call : calls) {
+                permits.acquire();
+                try {
+                    futures.add(executor().submit(new Callable<T>() {
+                        @Override
+                        public T call() throws Exception {
+                            try {
+                                return call.call(BlockIO.this);
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    throw new BlockIOException("Client is closed.");
+                }
+            }
+
+            List<BulkResult<T>> results = new ArrayList<BulkResult<T>>(futures.size());
+            for (Future<? extends T> future : futures) {
+                try {
+                    results.add(BulkResult.<T>success(future.get()));
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof java.lang.Error) {
+                        throw (java.lang.Error) cause;
+                    }
+                    results.add(BulkResult.<T>failure((Exception) cause));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            for (Future<? extends T> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new BlockIOException("Interrupted while waiting for API calls to finish.");
+        }
+    }
+
+    KeyCache keyCache() {
+        return keyCache;
+    }
+
+    ClientConfig config() {
+        return config;
+    }
+
+    synchronized void setAddressIndex(AddressIndex index) {
+        addressIndex = index;
+    }
+
+    synchronized void clearAddressIndex(AddressIndex index) {
+        if (addressIndex == index) {
+            addressIndex = null;
+        }
+    }
+
+    /**
+     * Adds a newly created address to the {@link io.block.api.AddressIndex} of this client, if there is one
+     */
+    NewAddress indexed(NewAddress newAddress) {
+        AddressIndex index = addressIndex;
+        if (index != null) {
+            index.add(newAddress);
+        }
+        return newAddress;
+    }
+
+    synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = newExecutor(config);
+        }
+        return executor;
+    }
+
+    private static ExecutorService newExecutor(ClientConfig config) {
+        if (config.useVirtualThreads) {
+            try {
+                // Looked up reflectively so that we still run on Java 8
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (Exception e) {
+                // No virtual threads on this JVM, use platform threads below
+            }
+        }
+
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blockio-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
     }
 
     /**
@@ -51,14 +288,10 @@ public class BlockIO {
      * @throws BlockIOException
      */
     public NewAddress getNewAddress(String label) throws BlockIOException {
-        HashMap<String, String> params = null;
-        if (label != null && !label.equals("")) {
-            params = new HashMap<String, String>(1);
-            params.put(Constants.Params.LABEL, label);
-        }
+        HashMap<String, String> params = optionalParam(Constants.Params.LABEL, label);
 
         Response.ResponseNewAddress response = (Response.ResponseNewAddress) doApiCall(Constants.Methods.GET_NEW_ADDRESS, params, Response.ResponseNewAddress.class);
-        return response.newAddress;
+        return indexed(response.newAddress);
     }
 
     /**
@@ -71,41 +304,42 @@ public class BlockIO {
         return response.accountAddresses;
     }
 
+    /**
+     * Requests the addresses in the account associated with this clients' API key and hands them to the visitor one by one
+     * while the response is decoded, without building the full list. Use this for accounts with very many addresses.
+     * @param visitor Receives every {@link io.block.api.model.Address} of the account
+     * @throws BlockIOException
+     */
+    public void visitAccountAddresses(ElementVisitor<Address> visitor) throws BlockIOException {
+        visitArray(buildGetRequest(Constants.Methods.GET_MY_ADDRESSES, null), "addresses", Address.class, visitor);
+    }
+
     /**
      * Requests balance(s) of given address(es) in the account associated with this clients' API key <br>
-     * Make sure that the addresses actually exist in the account or the whole call will fail
+     * Make sure that the addresses actually exist in the account or the whole call will fail <br>
+     * Large arrays are split into chunks of {@link io.block.api.ClientConfig#maxItemsPerRequest} that are requested in parallel
      * @param addresses A String array containing the addresses to request balances for
      * @return An {@link io.block.api.model.AddressBalances} object containing the balances
      * @throws BlockIOException
      */
     public AddressBalances getAddressBalancesByAddress(String[] addresses) throws BlockIOException {
-        if (addresses.length == 0) {
-            throw new IllegalArgumentException("You have to provide at least one address.");
-        }
-
-        String paramString = addresses.length == 1 ? addresses[0] : Arrays.asList(addresses).toString().replaceAll("^\\[|\\]$", "");
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        params.put(Constants.Params.ADDRS, paramString);
-
-        Response.ResponseAddressBalances response = (Response.ResponseAddressBalances) doApiCall(Constants.Methods.GET_ADDR_BALANCE, params, Response.ResponseAddressBalances.class);
-        return response.addressBalances;
+        return mergeAddressBalances(fanOut(addresses, "address", chunk -> addressBalances(Constants.Params.ADDRS, chunk)));
     }
 
     /**
      * Requests balance(s) of given label(s) in the account associated with this clients' API key <br>
-     * Make sure that the labels actually exist in the account or the whole call will fail
+     * Make sure that the labels actually exist in the account or the whole call will fail <br>
+     * Large arrays are split into chunks of {@link io.block.api.ClientConfig#maxItemsPerRequest} that are requested in parallel
      * @param labels A String array containing the labels to request balances for
      * @return An {@link io.block.api.model.AddressBalances} object containing the balances
      * @throws BlockIOException
      */
     public AddressBalances getAddressBalancesByLabels(String[] labels) throws BlockIOException {
-        if (labels.length == 0) {
-            throw new IllegalArgumentException("You have to provide at least one label.");
-        }
+        return mergeAddressBalances(fanOut(labels, "label", chunk -> addressBalances(Constants.Params.LABELS, chunk)));
+    }
 
-        String paramString = labels.length == 1 ? labels[0] : Arrays.asList(labels).toString().replaceAll("^\\[|\\]$", "");
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        params.put(Constants.Params.LABELS, paramString);
+    private AddressBalances addressBalances(String paramName, String[] chunk) throws BlockIOException {
+        HashMap<String, String> params = listParam(paramName, chunk, "address");
 
         Response.ResponseAddressBalances response = (Response.ResponseAddressBalances) doApiCall(Constants.Methods.GET_ADDR_BALANCE, params, Response.ResponseAddressBalances.class);
         return response.addressBalances;
@@ -118,12 +352,7 @@ public class BlockIO {
      * @throws BlockIOException
      */
     public AddressByLabel getAddressByLabel(String label) throws BlockIOException {
-        if (label == null || label.equals("")) {
-            throw new IllegalArgumentException("You have to provide a valid label.");
-        }
-
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        params.put(Constants.Params.LABEL, label);
+        HashMap<String, String> params = labelParam(label);
 
         Response.ResponseAddressByLabel response = (Response.ResponseAddressByLabel) doApiCall(Constants.Methods.GET_ADDR_BY_LABEL, params, Response.ResponseAddressByLabel.class);
         return response.addressByLabel;
@@ -138,7 +367,19 @@ public class BlockIO {
      * @throws BlockIOException
      */
     public Withdrawal withdrawToAddress(String address, double amount, String secretPin) throws BlockIOException {
-        HashMap<String, Double> target = new HashMap<String, Double>(1);
+        return withdrawToAddress(address, FixedAmount.of(amount), secretPin);
+    }
+
+    /**
+     * Like {@link #withdrawToAddress(String, double, String)}, with an exact amount
+     * @param address Target address
+     * @param amount Amount to withdraw
+     * @param secretPin The secret PIN you set at block.io to authorize and sign the withdrawal
+     * @return A {@link io.block.api.model.Withdrawal} object containing information about the sent transaction.
+     * @throws BlockIOException
+     */
+    public Withdrawal withdrawToAddress(String address, FixedAmount amount, String secretPin) throws BlockIOException {
+        HashMap<String, FixedAmount> target = new HashMap<String, FixedAmount>(1);
         target.put(address, amount);
         return withdraw(null, null, target, ParamType.ADDRS, secretPin);
     }
@@ -148,7 +389,9 @@ public class BlockIO {
      * @param sources Supply an array of sources for this withdrawal. If you set this to null, then block.io will select the sources automatically.
      *                You must not mix source types!
      * @param sourceType If you supplied a sources array, this is mandatory. Must be one of {@link io.block.api.BlockIO.ParamType}.
-     * @param targetsAndAmounts A {@link java.util.Map} with target as key ({@link java.lang.String}) and amount as value ({@link java.lang.Double}).
+     * @param targetsAndAmounts A {@link java.util.Map} with target as key ({@link java.lang.String}) and amount as value. Pass
+     *                          {@link io.block.api.model.FixedAmount} values for exact amounts; other {@link java.lang.Number}s
+     *                          are converted with {@link io.block.api.model.FixedAmount#valueOf(Number)}.
      *                          Each entry will be one target of the withdrawal. Limit is 100 per withdrawal.
      *                          You must not mix target types!
      * @param targetType This is mandatory and defines what type of targets this withdrawal goes to. One of {@link io.block.api.BlockIO.ParamType}.
@@ -156,7 +399,121 @@ public class BlockIO {
      * @return A {@link io.block.api.model.Withdrawal} object containing information about the sent transaction.
      * @throws BlockIOException
      */
-    public Withdrawal withdraw(String[] sources, ParamType sourceType, Map<String, Double> targetsAndAmounts, ParamType targetType, String secretPin) throws BlockIOException {
+    public Withdrawal withdraw(String[] sources, ParamType sourceType, Map<String, ? extends Number> targetsAndAmounts, ParamType targetType, String secretPin) throws BlockIOException {
+        checkWithdrawalArgs(targetsAndAmounts, secretPin);
+        HashMap<String, String> params = setupWithdrawalParams(targetsAndAmounts, targetType);
+        String method = setupWithdrawalSources(sources, sourceType, params);
+
+        long journalID = journalStarted(method, params);
+
+        // The PIN's key doesn't depend on the sign request, derive it while the request is on the wire
+        PreparedPin pin = preparePin(secretPin);
+        try {
+            HashMap<String, String> finalParams;
+            try {
+                Response.ResponseWithdrawSignRequest signRequestResponse = (Response.ResponseWithdrawSignRequest) doPostApiCall(method, params, Response.ResponseWithdrawSignRequest.class);
+                WithdrawSignRequest signRequest = signRequestResponse.withdrawSignRequest;
+                journalSignRequested(journalID, signRequest);
+                // Now lets' do the clientside magic
+                signRequest = SigningUtils.signWithdrawalRequest(signRequest, pin, keyCache, config.signingExecutor, config.signingEngine);
+                finalParams = journalSigned(journalID, signRequest);
+            } catch (BlockIOException | RuntimeException e) {
+                // Nothing was sent for finalization yet
+                journalFailed(journalID, e);
+                throw e;
+            }
+
+            return finalizeWithdrawal(finalParams, journalID);
+        } finally {
+            pin.wipe();
+        }
+    }
+
+    /**
+     * Records a new withdrawal in the journal, if there is one
+     * @return The ID of the withdrawal in the journal, 0 without journal
+     */
+    long journalStarted(String method, Map<String, String> params) throws BlockIOException {
+        if (config.withdrawalJournal == null) {
+            return 0;
+        }
+        try {
+            return config.withdrawalJournal.started(method, params);
+        } catch (IOException e) {
+            throw new BlockIOException("Could not write to the withdrawal journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records that a withdrawal failed before it was sent for finalization
+     */
+    void journalFailed(long journalID, Throwable error) {
+        if (config.withdrawalJournal == null) {
+            return;
+        }
+        try {
+            config.withdrawalJournal.failed(journalID, error.getMessage());
+        } catch (IOException e) {
+            // Only makes the withdrawal look unfinished, nothing was sent
+        }
+    }
+
+    /**
+     * Records the reference ID of the sign request as soon as it arrives, so it is known even if signing fails
+     */
+    void journalSignRequested(long journalID, WithdrawSignRequest signRequest) throws BlockIOException {
+        if (config.withdrawalJournal == null) {
+            return;
+        }
+        try {
+            config.withdrawalJournal.signRequested(journalID, signRequest != null ? signRequest.referenceID : null);
+        } catch (IOException e) {
+            throw new BlockIOException("Could not write to the withdrawal journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Durably records the signed request before it is sent for finalization
+     * @return The parameters of the finalization call
+     */
+    HashMap<String, String> journalSigned(long journalID, WithdrawSignRequest signedRequest) throws BlockIOException {
+        HashMap<String, String> params = signatureParams(signedRequest);
+        if (config.withdrawalJournal != null) {
+            try {
+                config.withdrawalJournal.signed(journalID, params.get(Constants.Params.SIG_DATA));
+            } catch (IOException e) {
+                throw new BlockIOException("Could not write to the withdrawal journal: " + e.getMessage());
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Records the transaction of a finalized withdrawal. Not forced to disk, a lost record only makes the withdrawal
+     * look unfinished.
+     */
+    void journalFinalized(long journalID, Withdrawal withdrawal) {
+        if (config.withdrawalJournal == null) {
+            return;
+        }
+        try {
+            config.withdrawalJournal.finalized(journalID, withdrawal != null ? withdrawal.txid : null);
+        } catch (IOException e) {
+            // The withdrawal went through, it only looks unfinished in the journal
+        }
+    }
+
+    /**
+     * Starts deriving the AES key of the PIN on the client's executor, unless the key cache may make it unnecessary
+     */
+    PreparedPin preparePin(String secretPin) {
+        if (keyCache != null && keyCache.size() > 0) {
+            return PreparedPin.of(secretPin);
+        }
+        return PreparedPin.start(secretPin, executor());
+    }
+
+    static void checkWithdrawalArgs(Map<String, ? extends Number> targetsAndAmounts, String secretPin) {
         if (targetsAndAmounts == null || targetsAndAmounts.size() == 0) {
             throw new IllegalArgumentException("You have to provide between one and 100 pair(s) of targets and amounts to withdraw to");
         }
@@ -164,12 +521,19 @@ public class BlockIO {
         if (secretPin == null || secretPin.equals("")) {
             throw new IllegalArgumentException("You have to provide your secret pin with withdrawals");
         }
+    }
 
-        HashMap<String, String> params = setupWithdrawalParams(targetsAndAmounts, targetType);
-
+    /**
+     * Adds the source parameter of a withdrawal to the given params and picks the matching API method
+     * @return The API method to use for the withdrawal
+     */
+    static String setupWithdrawalSources(String[] sources, ParamType sourceType, Map<String, String> params) throws BlockIOException {
         String method = Constants.Methods.WITHDRAW_FROM_ANY;
         if (sources != null && sources.length > 0) {
-            String sourcesString = sources.length == 1 ? sources[0] : Arrays.asList(sources).toString().replaceAll("^\\[|\\]$", "");
+            if (sourceType == null) {
+                throw new BlockIOException("You requested a withdrawal from specific sources but did not set the source type.");
+            }
+            String sourcesString = joinList(sources);
             switch (sourceType) {
                 case ADDRS:
                     params.put(Constants.Params.FROM_ADDRS, sourcesString);
@@ -187,28 +551,29 @@ public class BlockIO {
                     throw new BlockIOException("You requested a withdrawal from specific sources but did not set the source type.");
             }
         }
-
-        Response.ResponseWithdrawSignRequest signRequestResponse = (Response.ResponseWithdrawSignRequest) doPostApiCall(method, params, Response.ResponseWithdrawSignRequest.class);
-        WithdrawSignRequest signRequest = signRequestResponse.withdrawSignRequest;
-
-        return finalizeWithdrawal(signRequest, secretPin);
+        return method;
     }
 
-    private HashMap<String, String> setupWithdrawalParams(Map<String, Double> addrsAndAmounts, ParamType targetType) throws BlockIOException {
-        String addrsParamString = "";
-        String amountsParamString = "";
-        NumberFormat nf = NumberFormat.getNumberInstance(Locale.US); // This will force '.' as decimal separator
-        for (Map.Entry<String, Double> entry: addrsAndAmounts.entrySet()) {
-            addrsParamString += entry.getKey() + ",";
-            amountsParamString +=  nf.format(entry.getValue()) + ",";
+    static HashMap<String, String> setupWithdrawalParams(Map<String, ? extends Number> addrsAndAmounts, ParamType targetType) throws BlockIOException {
+        StringBuilder addrs = new StringBuilder();
+        StringBuilder amounts = new StringBuilder();
+        for (Map.Entry<String, ? extends Number> entry: addrsAndAmounts.entrySet()) {
+            if (addrs.length() > 0) {
+                addrs.append(',');
+                amounts.append(',');
+            }
+            addrs.append(entry.getKey());
+            // Always '.' as decimal separator and all 8 decimals, without grouping
+            amounts.append(FixedAmount.valueOf(entry.getValue()));
         }
-
-        // Now remove the trailing ','
-        addrsParamString = addrsParamString.replaceAll(",$", "");
-        amountsParamString = amountsParamString.replaceAll(",$", "");
+        String addrsParamString = addrs.toString();
+        String amountsParamString = amounts.toString();
 
         // And put it where it belongs
         HashMap<String, String> params = new HashMap<String, String>(2);
+        if (targetType == null) {
+            throw new BlockIOException("You did not set the target type.");
+        }
         switch (targetType) {
             case ADDRS:
                 params.put(Constants.Params.TO_ADDRS, addrsParamString);
@@ -227,19 +592,20 @@ public class BlockIO {
         return params;
     }
 
-    private Withdrawal finalizeWithdrawal(WithdrawSignRequest signRequest, String secretPin) throws BlockIOException {
-        // Now lets' do the clientside magic
-        signRequest = SigningUtils.signWithdrawalRequest(signRequest, secretPin);
-
-        // And do the actual withdrawal
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        Gson gson = new Gson();
-        params.put(Constants.Params.SIG_DATA, gson.toJson(signRequest, WithdrawSignRequest.class));
+    private Withdrawal finalizeWithdrawal(HashMap<String, String> params, long journalID) throws BlockIOException {
+        // And do the actual withdrawal. Failures from here on are not journaled, the withdrawal may have been sent.
         Response.ResponseWithdrawal withdrawalResponse = (Response.ResponseWithdrawal) doPostApiCall(Constants.Methods.WITHDRAW_DO_FINAL, params, Response.ResponseWithdrawal.class);
 
+        journalFinalized(journalID, withdrawalResponse.withdrawal);
         return withdrawalResponse.withdrawal;
     }
 
+    static HashMap<String, String> signatureParams(WithdrawSignRequest signedRequest) {
+        HashMap<String, String> params = new HashMap<String, String>(1);
+        params.put(Constants.Params.SIG_DATA, GSON.toJson(signedRequest, WithdrawSignRequest.class));
+        return params;
+    }
+
     /**
      * Requests prices of the currency of the account associated with this clients' API key
      * @param baseCurrency Optional base currency to return prices in. null or "" to get prices in all available base currencies
@@ -247,51 +613,140 @@ public class BlockIO {
      * @throws BlockIOException
      */
     public Prices getPrices(String baseCurrency) throws BlockIOException{
-        HashMap<String, String> params = null;
-        if (baseCurrency != null && !baseCurrency.equals("")) {
-            params = new HashMap<String, String>(1);
-            params.put(Constants.Params.PRICE_BASE, baseCurrency);
-        }
+        HashMap<String, String> params = optionalParam(Constants.Params.PRICE_BASE, baseCurrency);
 
         Response.ResponsePrices response = (Response.ResponsePrices) doApiCall(Constants.Methods.GET_PRICES, params, Response.ResponsePrices.class);
         return response.prices;
     }
 
     /**
-     * Checks the given address(es) for being Block.io Green Address(es)
+     * Checks the given address(es) for being Block.io Green Address(es) <br>
+     * Large arrays are split into chunks of {@link io.block.api.ClientConfig#maxItemsPerRequest} that are requested in parallel
      * @param addresses A String array containing the addresses to request status for
      * @return An {@link io.block.api.model.GreenAddresses} object containing the subset of the given addresses that are green
      * @throws BlockIOException
      */
     public GreenAddresses isGreenAddress(String[] addresses) throws BlockIOException {
-        if (addresses.length == 0) {
-            throw new IllegalArgumentException("You have to provide at least one address.");
-        }
+        return mergeGreenAddresses(fanOut(addresses, "address", chunk -> {
+            HashMap<String, String> params = listParam(Constants.Params.ADDRS, chunk, "address");
 
-        String paramString = addresses.length == 1 ? addresses[0] : Arrays.asList(addresses).toString().replaceAll("^\\[|\\]$", "");
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        params.put(Constants.Params.ADDRS, paramString);
-
-        Response.ResponseGreenAddresses response = (Response.ResponseGreenAddresses) doApiCall(Constants.Methods.IS_GREEN_ADDR, params, Response.ResponseGreenAddresses.class);
-        return response.greenAddresses;
+            Response.ResponseGreenAddresses response = (Response.ResponseGreenAddresses) doApiCall(Constants.Methods.IS_GREEN_ADDR, params, Response.ResponseGreenAddresses.class);
+            return response.greenAddresses;
+        }));
     }
 
     /**
-     * Checks the given transaction(s) for being sent by a Block.io Green Address
+     * Checks the given transaction(s) for being sent by a Block.io Green Address <br>
+     * Large arrays are split into chunks of {@link io.block.api.ClientConfig#maxItemsPerRequest} that are requested in parallel
      * @return An {@link io.block.api.model.GreenTransactions} object containing the subset of the given transactions that are green
      * @throws BlockIOException
      */
     public GreenTransactions isGreenTransaction(String[] txIDs) throws BlockIOException {
-        if (txIDs.length == 0) {
-            throw new IllegalArgumentException("You have to provide at least one transaction ID.");
+        return mergeGreenTransactions(fanOut(txIDs, "transaction ID", chunk -> {
+            HashMap<String, String> params = listParam(Constants.Params.TX_IDS, chunk, "transaction ID");
+
+            Response.ResponseGreenTransactions response = (Response.ResponseGreenTransactions) doApiCall(Constants.Methods.IS_GREEN_TX, params, Response.ResponseGreenTransactions.class);
+            return response.greenTransactions;
+        }));
+    }
+
+    interface ChunkCall<T> {
+        T call(String[] chunk) throws BlockIOException;
+    }
+
+    /**
+     * Runs a call for each chunk of the given values, in parallel if there is more than one chunk
+     * @return The results of all chunks, in order
+     */
+    private <T> List<T> fanOut(String[] values, String what, final ChunkCall<T> call) throws BlockIOException {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("You have to provide at least one " + what + ".");
         }
 
-        String paramString = txIDs.length == 1 ? txIDs[0] : Arrays.asList(txIDs).toString().replaceAll("^\\[|\\]$", "");
-        HashMap<String, String> params = new HashMap<String, String>(1);
-        params.put(Constants.Params.TX_IDS, paramString);
+        List<String[]> chunks = chunk(values, config.maxItemsPerRequest);
+        if (chunks.size() == 1) {
+            return Collections.singletonList(call.call(values));
+        }
+
+        List<ApiCall<T>> calls = new ArrayList<ApiCall<T>>(chunks.size());
+        for (final String[] chunk : chunks) {
+            calls.add(api -> call.call(chunk));
+        }
+
+        List<T> parts = new ArrayList<T>(chunks.size());
+        for (BulkResult<T> result : executeAll(calls)) {
+            if (result.error instanceof BlockIOException) {
+                throw (BlockIOException) result.error;
+            } else if (result.error != null) {
+                throw (RuntimeException) result.error;
+            }
+            parts.add(result.value);
+        }
+        return parts;
+    }
 
-        Response.ResponseGreenTransactions response = (Response.ResponseGreenTransactions) doApiCall(Constants.Methods.IS_GREEN_TX, params, Response.ResponseGreenTransactions.class);
-        return response.greenTransactions;
+    static List<String[]> chunk(String[] values, int chunkSize) {
+        if (chunkSize < 1 || values.length <= chunkSize) {
+            return Collections.singletonList(values);
+        }
+        List<String[]> chunks = new ArrayList<String[]>((values.length + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < values.length; from += chunkSize) {
+            chunks.add(Arrays.copyOfRange(values, from, Math.min(values.length, from + chunkSize)));
+        }
+        return chunks;
+    }
+
+    static AddressBalances mergeAddressBalances(List<AddressBalances> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        AddressBalances merged = new AddressBalances();
+        merged.balances = new ArrayList<Balance>();
+        long available = 0;
+        long pending = 0;
+        for (AddressBalances part : parts) {
+            merged.network = part.network;
+            available += units(part.availableBalance);
+            pending += units(part.pedingReceivedBalance);
+            if (part.balances != null) {
+                merged.balances.addAll(part.balances);
+            }
+        }
+        merged.availableBalance = FixedAmount.ofUnits(available);
+        merged.pedingReceivedBalance = FixedAmount.ofUnits(pending);
+        return merged;
+    }
+
+    private static long units(FixedAmount amount) {
+        return amount == null ? 0 : amount.units();
+    }
+
+    static GreenAddresses mergeGreenAddresses(List<GreenAddresses> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        GreenAddresses merged = new GreenAddresses();
+        merged.greenAddresses = new ArrayList<GreenAddress>();
+        for (GreenAddresses part : parts) {
+            if (part.greenAddresses != null) {
+                merged.greenAddresses.addAll(part.greenAddresses);
+            }
+        }
+        return merged;
+    }
+
+    static GreenTransactions mergeGreenTransactions(List<GreenTransactions> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        GreenTransactions merged = new GreenTransactions();
+        merged.greenTransactions = new ArrayList<GreenTransaction>();
+        for (GreenTransactions part : parts) {
+            if (part.greenTransactions != null) {
+                merged.greenTransactions.addAll(part.greenTransactions);
+            }
+        }
+        return merged;
     }
 
     /**
@@ -337,6 +792,30 @@ public class BlockIO {
         return (TransactionsReceived) abstractTransactionRequest(userIDs, Constants.Params.USER_IDS, beforeTX, Constants.Values.TYPE_RECEIVED);
     }
 
+    /**
+     * Like {@link #getTransactionsReceived(String)}, but hands the transactions to the visitor one by one while the
+     * response is decoded, without building the full list
+     * @param beforeTX An optional transaction ID used as upper bound of the requested transactions
+     * @param visitor Receives every {@link io.block.api.model.TransactionReceived}
+     * @throws BlockIOException
+     */
+    public void visitTransactionsReceived(String beforeTX, ElementVisitor<TransactionReceived> visitor) throws BlockIOException {
+        HashMap<String, String> params = transactionParams(null, null, beforeTX, Constants.Values.TYPE_RECEIVED);
+        visitArray(buildGetRequest(Constants.Methods.GET_TXNS, params), "txs", TransactionReceived.class, visitor);
+    }
+
+    /**
+     * Like {@link #getTransactionsSent(String)}, but hands the transactions to the visitor one by one while the
+     * response is decoded, without building the full list
+     * @param beforeTX An optional transaction ID used as upper bound of the requested transactions
+     * @param visitor Receives every {@link io.block.api.model.TransactionSent}
+     * @throws BlockIOException
+     */
+    public void visitTransactionsSent(String beforeTX, ElementVisitor<TransactionSent> visitor) throws BlockIOException {
+        HashMap<String, String> params = transactionParams(null, null, beforeTX, Constants.Values.TYPE_SENT);
+        visitArray(buildGetRequest(Constants.Methods.GET_TXNS, params), "txs", TransactionSent.class, visitor);
+    }
+
     /**
      * Lists up to 100 of the last transactions sent by the account associated with this clients' API key
      * @param beforeTX An optional transaction ID used as upper bound of the requested transactions. Use this to request more than 100 of the last transactions
@@ -380,7 +859,118 @@ public class BlockIO {
         return (TransactionsSent) abstractTransactionRequest(userIDs, Constants.Params.USER_IDS, beforeTX, Constants.Values.TYPE_SENT);
     }
 
+    /**
+     * Walks all transactions received by the account associated with this clients' API key, newest first, requesting
+     * the pages lazily and one page ahead. See {@link io.block.api.TransactionHistory} for how to stop early.
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionReceived}
+     */
+    public TransactionHistory<TransactionReceived> streamTransactionsReceived(String beforeTX) {
+        return receivedHistory(null, null, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsReceived(String)}, for the given addresses
+     * @param addresses A String array containing the addresses to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionReceived}
+     */
+    public TransactionHistory<TransactionReceived> streamTransactionsReceivedByAddress(String[] addresses, String beforeTX) {
+        return receivedHistory(addresses, Constants.Params.ADDRS, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsReceived(String)}, for the given labels
+     * @param labels A String array containing the labels to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionReceived}
+     */
+    public TransactionHistory<TransactionReceived> streamTransactionsReceivedByLabel(String[] labels, String beforeTX) {
+        return receivedHistory(labels, Constants.Params.LABELS, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsReceived(String)}, for the given user IDs
+     * @param userIDs A String array containing the user IDs to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionReceived}
+     */
+    public TransactionHistory<TransactionReceived> streamTransactionsReceivedByUserID(String[] userIDs, String beforeTX) {
+        return receivedHistory(userIDs, Constants.Params.USER_IDS, beforeTX);
+    }
+
+    /**
+     * Walks all transactions sent by the account associated with this clients' API key, newest first, requesting
+     * the pages lazily and one page ahead. See {@link io.block.api.TransactionHistory} for how to stop early.
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionSent}
+     */
+    public TransactionHistory<TransactionSent> streamTransactionsSent(String beforeTX) {
+        return sentHistory(null, null, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsSent(String)}, for the given addresses
+     * @param addresses A String array containing the addresses to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionSent}
+     */
+    public TransactionHistory<TransactionSent> streamTransactionsSentByAddress(String[] addresses, String beforeTX) {
+        return sentHistory(addresses, Constants.Params.ADDRS, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsSent(String)}, for the given labels
+     * @param labels A String array containing the labels to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionSent}
+     */
+    public TransactionHistory<TransactionSent> streamTransactionsSentByLabel(String[] labels, String beforeTX) {
+        return sentHistory(labels, Constants.Params.LABELS, beforeTX);
+    }
+
+    /**
+     * Like {@link #streamTransactionsSent(String)}, for the given user IDs
+     * @param userIDs A String array containing the user IDs to walk transactions for
+     * @param beforeTX An optional transaction ID used as upper bound of the walked transactions
+     * @return A lazy {@link io.block.api.TransactionHistory} of {@link io.block.api.model.TransactionSent}
+     */
+    public TransactionHistory<TransactionSent> streamTransactionsSentByUserID(String[] userIDs, String beforeTX) {
+        return sentHistory(userIDs, Constants.Params.USER_IDS, beforeTX);
+    }
+
+    private TransactionHistory<TransactionReceived> receivedHistory(final String[] whatFor, final String typeOfParams, String beforeTX) {
+        // Validate right away rather than on the first page request
+        transactionParams(whatFor, typeOfParams, beforeTX, Constants.Values.TYPE_RECEIVED);
+        final AsyncBlockIO async = async();
+        return new TransactionHistory<TransactionReceived>(beforeTX,
+                before -> async.transactionsReceived(whatFor, typeOfParams, before).thenApply(page -> page.txs),
+                tx -> tx.txid, tx -> tx.time);
+    }
+
+    private TransactionHistory<TransactionSent> sentHistory(final String[] whatFor, final String typeOfParams, String beforeTX) {
+        transactionParams(whatFor, typeOfParams, beforeTX, Constants.Values.TYPE_SENT);
+        final AsyncBlockIO async = async();
+        return new TransactionHistory<TransactionSent>(beforeTX,
+                before -> async.transactionsSent(whatFor, typeOfParams, before).thenApply(page -> page.txs),
+                tx -> tx.txid, tx -> tx.time);
+    }
+
     private Object abstractTransactionRequest(String[] whatFor, String typeOfParams, String beforeTx, String type) throws BlockIOException {
+        HashMap<String, String> params = transactionParams(whatFor, typeOfParams, beforeTx, type);
+
+        if (type.equals(Constants.Values.TYPE_RECEIVED)) {
+            Response.ResponseTransactionsReceived response = (Response.ResponseTransactionsReceived) doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsReceived.class);
+            return response.transactionsReceived;
+        } else if (type.equals(Constants.Values.TYPE_SENT)) {
+            Response.ResponseTransactionsSent response = (Response.ResponseTransactionsSent) doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsSent.class);
+            return response.transactionsSent;
+        } else {
+            throw new IllegalArgumentException("Internal error. Please file an issue report");
+        }
+    }
+
+    static HashMap<String, String> transactionParams(String[] whatFor, String typeOfParams, String beforeTx, String type) {
         HashMap<String, String> params = new HashMap<String, String>();
         params.put(Constants.Params.TYPE, type);
 
@@ -388,90 +978,348 @@ public class BlockIO {
             if (whatFor.length == 0) {
                 throw new IllegalArgumentException("You have to provide at least one address/label/user ID.");
             }
-            String paramString = whatFor.length == 1 ? whatFor[0] : Arrays.asList(whatFor).toString().replaceAll("^\\[|\\]$", "");
-            params.put(typeOfParams, paramString);
+            params.put(typeOfParams, joinList(whatFor));
         }
 
         if (beforeTx != null && !beforeTx.equals("")) {
             params.put(Constants.Params.BEFORE_TX, beforeTx);
         }
+        return params;
+    }
 
-        if (type.equals(Constants.Values.TYPE_RECEIVED)) {
-            Response.ResponseTransactionsReceived response = (Response.ResponseTransactionsReceived) doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsReceived.class);
-            return response.transactionsReceived;
-        } else if (type.equals(Constants.Values.TYPE_SENT)) {
-            Response.ResponseTransactionsSent response = (Response.ResponseTransactionsSent) doApiCall(Constants.Methods.GET_TXNS, params, Response.ResponseTransactionsSent.class);
-            return response.transactionsSent;
-        } else {
-            throw new IllegalArgumentException("Internal error. Please file an issue report");
+    static HashMap<String, String> optionalParam(String key, String value) {
+        if (value == null || value.equals("")) {
+            return null;
+        }
+        HashMap<String, String> params = new HashMap<String, String>(1);
+        params.put(key, value);
+        return params;
+    }
+
+    static HashMap<String, String> labelParam(String label) {
+        if (label == null || label.equals("")) {
+            throw new IllegalArgumentException("You have to provide a valid label.");
         }
+
+        HashMap<String, String> params = new HashMap<String, String>(1);
+        params.put(Constants.Params.LABEL, label);
+        return params;
+    }
+
+    static HashMap<String, String> listParam(String key, String[] values, String what) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("You have to provide at least one " + what + ".");
+        }
+
+        HashMap<String, String> params = new HashMap<String, String>(1);
+        params.put(key, joinList(values));
+        return params;
+    }
+
+    static String joinList(String[] values) {
+        return ParamEncoder.join(values);
     }
 
     private Response doApiCall(String method, Map<String, String> params, Class<?> responseType) throws BlockIOException {
-        CloseableHttpClient client = HttpClients.createDefault();
-        HttpGet request = new HttpGet(Constants.buildUri(method));
-        URIBuilder uriBuilder = new URIBuilder(request.getURI());
-        uriBuilder.addParameter(Constants.Params.API_KEY, apiKey);
+        if (!Constants.Methods.READ_ONLY.contains(method)) {
+            try {
+                return execute(buildGetRequest(method, params), responseType);
+            } finally {
+                invalidateAfterWrite(method);
+            }
+        }
 
-        if (params != null) {
-            for (Map.Entry<String, String> entry: params.entrySet()) {
-                uriBuilder.addParameter(entry.getKey(), entry.getValue());
+        String key = requestKey(method, params, responseType);
+        boolean cached = cache != null && cache.isCached(method);
+        long generation = 0;
+        if (cached) {
+            Response response = cache.get(key);
+            if (response != null) {
+                return response;
             }
+            generation = cache.generation();
         }
 
-        CloseableHttpResponse response;
-        try {
-            request.setURI(uriBuilder.build());
-            response = client.execute(request);
-            return getResponse(response, responseType);
-        } catch (IOException e) {
-            throw new BlockIOException("Network connectivity problem.");
-        } catch (URISyntaxException e) {
-            throw new BlockIOException("URI build failed. That is an internal error. Please file an issue.");
+        if (config.coalesceReads) {
+            return executeShared(key, method, params, responseType, cached, generation);
+        }
+
+        Response response = execute(buildGetRequest(method, params), responseType);
+        if (cached) {
+            cache.put(key, method, response, generation);
         }
+        return response;
     }
 
     private Response doPostApiCall(String method, Map<String, String> params, Class<?> responseType) throws BlockIOException {
-        CloseableHttpClient client = HttpClients.createDefault();
-        HttpPost request = new HttpPost(Constants.buildUri(method, true));
-        List<NameValuePair> postParams = new ArrayList<NameValuePair>(2);
+        try {
+            return execute(buildPostRequest(method, params), responseType);
+        } finally {
+            invalidateAfterWrite(method);
+        }
+    }
+
+    /**
+     * Single flight: the first caller does the request, identical concurrent callers wait for its response. <br>
+     * Only the first caller stores the response in the cache, with the generation from when its request was started.
+     * A caller that joins after a write has to take the response of a request started before the write, and must
+     * not store it under the generation after the write.
+     */
+    private Response executeShared(String key, String method, Map<String, String> params, Class<?> responseType, boolean cached, long generation) throws BlockIOException {
+        CompletableFuture<Response> leader = new CompletableFuture<Response>();
+        CompletableFuture<Response> inFlight = inFlightReads.putIfAbsent(key, leader);
+        if (inFlight != null) {
+            return awaitShared(inFlight);
+        }
+
+        try {
+            Response response = execute(buildGetRequest(method, params), responseType);
+            if (cached) {
+                cache.put(key, method, response, generation);
+            }
+            inFlightReads.remove(key, leader);
+            leader.complete(response);
+            return response;
+        } catch (BlockIOException | RuntimeException e) {
+            inFlightReads.remove(key, leader);
+            leader.completeExceptionally(e);
+            throw e;
+        }
+    }
 
-        postParams.add(new BasicNameValuePair(Constants.Params.API_KEY, apiKey));
+    CompletableFuture<Response> doApiCallAsync(final String method, Map<String, String> params, Class<?> responseType) {
+        if (!Constants.Methods.READ_ONLY.contains(method)) {
+            return executeAsync(buildGetRequest(method, params), responseType)
+                    .whenComplete((response, error) -> invalidateAfterWrite(method));
+        }
+
+        final String key = requestKey(method, params, responseType);
+        final boolean cached = cache != null && cache.isCached(method);
+        final long generation;
+        if (cached) {
+            Response response = cache.get(key);
+            if (response != null) {
+                return CompletableFuture.completedFuture(response);
+            }
+            generation = cache.generation();
+        } else {
+            generation = 0;
+        }
+
+        if (config.coalesceReads) {
+            return executeSharedAsync(key, method, params, responseType, cached, generation);
+        }
+
+        CompletableFuture<Response> future = executeAsync(buildGetRequest(method, params), responseType);
+        if (cached) {
+            future = future.whenComplete((response, error) -> {
+                if (error == null) {
+                    cache.put(key, method, response, generation);
+                }
+            });
+        }
+        return future;
+    }
 
+    /**
+     * @see #executeShared(String, String, Map, Class, boolean, long)
+     */
+    private CompletableFuture<Response> executeSharedAsync(final String key, final String method, Map<String, String> params, Class<?> responseType,
+                                                           final boolean cached, final long generation) {
+        final CompletableFuture<Response> leader = new CompletableFuture<Response>();
+        CompletableFuture<Response> inFlight = inFlightReads.putIfAbsent(key, leader);
+        if (inFlight != null) {
+            return inFlight;
+        }
+
+        executeAsync(buildGetRequest(method, params), responseType).whenComplete((response, error) -> {
+            if (error == null && cached) {
+                cache.put(key, method, response, generation);
+            }
+            inFlightReads.remove(key, leader);
+            if (error != null) {
+                leader.completeExceptionally(error);
+            } else {
+                leader.complete(response);
+            }
+        });
+        return leader;
+    }
+
+    CompletableFuture<Response> doPostApiCallAsync(final String method, Map<String, String> params, Class<?> responseType) {
+        return executeAsync(buildPostRequest(method, params), responseType)
+                .whenComplete((response, error) -> invalidateAfterWrite(method));
+    }
+
+    /**
+     * Drops cached responses that the given write may have made stale. Also called when the write failed,
+     * since it might still have gone through on the server.
+     */
+    private void invalidateAfterWrite(String method) {
+        if (cache == null) {
+            return;
+        }
+        if (Constants.Methods.GET_NEW_ADDRESS.equals(method)) {
+            cache.invalidate(Constants.Methods.GET_MY_ADDRESSES, Constants.Methods.GET_ADDR_BY_LABEL);
+        } else {
+            // Withdrawals change balances and transaction history
+            cache.invalidate(Constants.Methods.GET_ACCOUNT_BALANCE, Constants.Methods.GET_ADDR_BALANCE,
+                    Constants.Methods.GET_MY_ADDRESSES, Constants.Methods.GET_ADDR_BY_LABEL, Constants.Methods.GET_TXNS);
+        }
+    }
+
+    /**
+     * Identifies a request by API method and parameters, independent of parameter order
+     */
+    static String requestKey(String method, Map<String, String> params, Class<?> responseType) {
+        StringBuilder key = new StringBuilder(method).append('|').append(responseType.getName());
         if (params != null) {
-            for (Map.Entry<String, String> entry: params.entrySet()) {
-                postParams.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+            for (Map.Entry<String, String> entry : new TreeMap<String, String>(params).entrySet()) {
+                key.append('|').append(entry.getKey()).append('=').append(entry.getValue());
             }
         }
+        return key.toString();
+    }
 
-        CloseableHttpResponse response;
+    private static Response awaitShared(CompletableFuture<Response> inFlight) throws BlockIOException {
         try {
-            request.setEntity(new UrlEncodedFormEntity(postParams));
-            response = client.execute(request);
-            return getResponse(response, responseType);
+            return inFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BlockIOException("Interrupted while waiting for API response.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BlockIOException) {
+                // Every waiting caller gets its own exception with its own stack trace
+                throw new BlockIOException(cause.getMessage());
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new BlockIOException("Unexpected error: " + cause);
+        }
+    }
+
+    private Response execute(TransportRequest request, Class<?> responseType) throws BlockIOException {
+        TransportResponse response;
+        try {
+            response = transport.execute(request);
         } catch (IOException e) {
             throw new BlockIOException("Network connectivity problem.");
         }
+        return getResponse(response, responseType);
+    }
+
+    private CompletableFuture<Response> executeAsync(TransportRequest request, final Class<?> responseType) {
+        final CompletableFuture<Response> future = new CompletableFuture<Response>();
+        transport.executeAsync(request).whenComplete((response, error) -> {
+            if (error != null) {
+                future.completeExceptionally(new BlockIOException("Network connectivity problem."));
+                return;
+            }
+            try {
+                future.complete(getResponse(response, responseType));
+            } catch (BlockIOException | RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    TransportRequest buildGetRequest(String method, Map<String, String> params) {
+        return TransportRequest.get(ParamEncoder.query(Constants.buildUri(config.apiUrl, method, false), apiKey, params));
+    }
+
+    TransportRequest buildPostRequest(String method, Map<String, String> params) {
+        return TransportRequest.post(Constants.buildUri(config.apiUrl, method, true), ParamEncoder.form(apiKey, params));
     }
 
-    private Response getResponse(CloseableHttpResponse response, Class<?> responseType) throws BlockIOException {
-        Gson gson = new Gson();
-        String responseString;
+    static Response getResponse(TransportResponse response, Class<?> responseType) throws BlockIOException {
         try {
-            responseString = EntityUtils.toString(response.getEntity());
+            // Decode straight from the body stream, the response is never held as a whole string
+            JsonReader reader = new JsonReader(new InputStreamReader(response.getBody(), Consts.UTF_8));
+            switch (response.statusCode) {
+                case HttpStatus.SC_OK:
+                    return (Response) GSON.fromJson(reader, responseType);
+                case HttpStatus.SC_NOT_FOUND:
+                    throw apiError(reader);
+                default:
+                    throw new BlockIOException("Unknown API response.");
+            }
+        } catch (JsonParseException e) {
+            throw new BlockIOException("Received invalid data from API.");
+        } finally {
+            closeQuietly(response);
+        }
+    }
+
+    private static BlockIOException apiError(JsonReader reader) {
+        Response.ResponseError error = GSON.fromJson(reader, Response.ResponseError.class);
+        return new BlockIOException(API_ERROR + error.error.message);
+    }
+
+    /**
+     * @return True if the API answered the request with an error, as opposed to a transport or parsing problem
+     */
+    static boolean isApiError(Throwable e) {
+        return e instanceof BlockIOException && e.getMessage() != null && e.getMessage().startsWith(API_ERROR);
+    }
+
+    private static void closeQuietly(TransportResponse response) {
+        try {
+            // Closing the body drains what is left of it, which hands the connection back to the pool for reuse
             response.close();
+        } catch (IOException ignored) {
+            // The connection is discarded by the pool in this case
+        }
+    }
+
+    /**
+     * Sends a request and hands the elements of one array inside its "data" object to the visitor as they are decoded.
+     * Bypasses coalescing and the response cache, since the response is never materialized.
+     */
+    private <T> void visitArray(TransportRequest request, String arrayName, Class<T> elementType, ElementVisitor<T> visitor) throws BlockIOException {
+        TransportResponse response;
+        try {
+            response = transport.execute(request);
         } catch (IOException e) {
-            throw new BlockIOException("Received invalid data from API.");
+            throw new BlockIOException("Network connectivity problem.");
         }
 
-        switch (response.getStatusLine().getStatusCode()) {
-            case HttpStatus.SC_OK:
-                return (Response) gson.fromJson(responseString, responseType);
-            case HttpStatus.SC_NOT_FOUND:
-                Response.ResponseError error = gson.fromJson(responseString, Response.ResponseError.class);
-                throw new BlockIOException("API returned error: " + error.error.message);
-            default:
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(response.getBody(), Consts.UTF_8));
+            if (response.statusCode == HttpStatus.SC_NOT_FOUND) {
+                throw apiError(reader);
+            } else if (response.statusCode != HttpStatus.SC_OK) {
                 throw new BlockIOException("Unknown API response.");
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("data") || reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (!reader.nextName().equals(arrayName) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        T element = GSON.fromJson(reader, elementType);
+                        visitor.visit(element);
+                    }
+                    reader.endArray();
+                }
+                reader.endObject();
+            }
+            reader.endObject();
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            throw new BlockIOException("Received invalid data from API.");
+        } finally {
+            closeQuietly(response);
         }
     }
 }
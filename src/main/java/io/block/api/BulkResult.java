@@ -0,0 +1,28 @@
+package io.block.api;
+
+/**
+ * Outcome of one {@link io.block.api.ApiCall} executed by {@link io.block.api.BlockIO#executeAll(java.util.List)}.
+ * Exactly one of {@link #value} and {@link #error} is set, unless the call itself returned null.
+ * @param <T> Type of the call's result
+ */
+public class BulkResult<T> {
+    public final T value;
+    public final Exception error;
+
+    private BulkResult(T value, Exception error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    static <T> BulkResult<T> success(T value) {
+        return new BulkResult<T>(value, null);
+    }
+
+    static <T> BulkResult<T> failure(Exception error) {
+        return new BulkResult<T>(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
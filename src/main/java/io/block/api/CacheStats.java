@@ -0,0 +1,28 @@
+package io.block.api;
+
+/**
+ * Snapshot of the response cache counters of a {@link io.block.api.BlockIO} client
+ */
+public class CacheStats {
+    public final long hits;
+    public final long misses;
+    public final long evictions;
+    public final int size;
+
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size + "}";
+    }
+}
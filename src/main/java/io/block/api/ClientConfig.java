@@ -0,0 +1,165 @@
+package io.block.api;
+
+import io.block.api.utils.Constants;
+import io.block.api.utils.SigningEngine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Tuning knobs for a {@link io.block.api.BlockIO} client. <br>
+ * Create one, adjust the fields you care about and hand it to {@link io.block.api.BlockIO#BlockIO(String, ClientConfig)}.
+ * The client and its transport work on a {@link #copy()} taken when they are created, so changing a config after
+ * the client has been created has no effect. The objects it refers to, such as the signing executor or the
+ * withdrawal journal, are shared rather than copied.
+ */
+public class ClientConfig {
+
+    /**
+     * Base URL of the API, without trailing slash. Only needs to be changed for testing.
+     */
+    public String apiUrl = Constants.BASE_URL + Constants.API_VERSION;
+
+    /**
+     * Maximum number of pooled connections across all routes
+     */
+    public int maxConnections = 20;
+
+    /**
+     * Maximum number of pooled connections per route. All API calls go to the same host, so this is
+     * effectively the number of requests that can be in flight at the same time.
+     */
+    public int maxConnectionsPerRoute = 20;
+
+    /**
+     * How long an idle connection is kept alive if the server does not announce a keep-alive timeout itself
+     */
+    public long keepAliveMillis = 30000;
+
+    /**
+     * Connections idle for longer than this are evicted from the pool by a background thread
+     */
+    public long idleConnectionTimeoutMillis = 60000;
+
+    /**
+     * Timeout for establishing a connection. 0 means no timeout.
+     */
+    public int connectTimeoutMillis = 10000;
+
+    /**
+     * Timeout for waiting on data from an established connection. 0 means no timeout.
+     */
+    public int socketTimeoutMillis = 30000;
+
+    /**
+     * Timeout for leasing a connection from the pool when all of them are in use. 0 means no timeout.
+     */
+    public int connectionRequestTimeoutMillis = 30000;
+
+    /**
+     * Maximum number of calls run at the same time by {@link io.block.api.BlockIO#executeAll(java.util.List)}, and of
+     * requests in flight for the chunks of one large lookup, sync or async
+     */
+    public int bulkConcurrency = 20;
+
+    /**
+     * Run background work such as bulk calls on virtual threads if the JVM supports them (Java 21 and later).
+     * Platform threads are used otherwise.
+     */
+    public boolean useVirtualThreads = true;
+
+    /**
+     * Let concurrent identical read calls (same method and parameters) share a single request and its response.
+     * Callers sharing a response receive the same model objects, so treat them as read-only.
+     */
+    public boolean coalesceReads = true;
+
+    /**
+     * Time to live of cached responses per API method (see {@link io.block.api.utils.Constants.Methods}), in milliseconds.
+     * Only read-only methods can be cached. Responses of methods not in this map are never cached, so an empty map
+     * disables the cache. Every caller within the time to live receives the same model objects, so treat cached
+     * responses as read-only. Example: {@code cacheTtlMillis.put(Constants.Methods.GET_PRICES, 5000L)}
+     */
+    public Map<String, Long> cacheTtlMillis = new HashMap<String, Long>();
+
+    /**
+     * Maximum number of cached responses. The least recently used response is evicted first.
+     */
+    public int cacheMaxEntries = 1000;
+
+    /**
+     * Maximum number of addresses, labels or transaction IDs sent in a single request. Larger arrays passed to
+     * balance and green status lookups are split into chunks of this size, requested in parallel and merged.
+     */
+    public int maxItemsPerRequest = 100;
+
+    /**
+     * Advertise gzip and deflate in {@code Accept-Encoding} and decode compressed responses while they are parsed
+     */
+    public boolean compressResponses = true;
+
+    /**
+     * POST bodies of at least this many bytes are sent gzip compressed with {@code Content-Encoding: gzip}.
+     * Negative disables request compression, which is the default since the server has to accept compressed bodies.
+     */
+    public int compressRequestsAboveBytes = -1;
+
+    /**
+     * How long keys derived from the secret PIN and encrypted passphrase are kept in memory for further withdrawals.
+     * 0 disables the key cache, which is the default. See {@link io.block.api.utils.KeyCache}.
+     */
+    public long keyCacheTtlMillis = 0;
+
+    /**
+     * How many withdrawals may be signed with a cached key before it is derived again
+     */
+    public int keyCacheMaxUses = 100;
+
+    /**
+     * Signs the inputs of large withdrawals in parallel on this executor, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     * The signatures are the same either way. Null, the default, signs sequentially on the calling thread.
+     */
+    public Executor signingExecutor = null;
+
+    /**
+     * Computes public keys and signatures for withdrawals. Null, the default, uses {@link io.block.api.utils.BouncyCastleSigningEngine};
+     * {@link io.block.api.utils.Secp256k1SigningEngine} produces the same signatures with code specialized for the curve.
+     */
+    public SigningEngine signingEngine = null;
+
+    /**
+     * Records the phases of every withdrawal, to find those that may have moved funds after a crash. Null, the default,
+     * keeps no journal. The client does not close it. See {@link io.block.api.WithdrawalJournal}.
+     */
+    public WithdrawalJournal withdrawalJournal = null;
+
+    /**
+     * @return A config with the same settings, independent of this one. Referenced objects are shared.
+     */
+    public ClientConfig copy() {
+        ClientConfig copy = new ClientConfig();
+        copy.apiUrl = apiUrl;
+        copy.maxConnections = maxConnections;
+        copy.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        copy.keepAliveMillis = keepAliveMillis;
+        copy.idleConnectionTimeoutMillis = idleConnectionTimeoutMillis;
+        copy.connectTimeoutMillis = connectTimeoutMillis;
+        copy.socketTimeoutMillis = socketTimeoutMillis;
+        copy.connectionRequestTimeoutMillis = connectionRequestTimeoutMillis;
+        copy.bulkConcurrency = bulkConcurrency;
+        copy.useVirtualThreads = useVirtualThreads;
+        copy.coalesceReads = coalesceReads;
+        copy.cacheTtlMillis = new HashMap<String, Long>(cacheTtlMillis);
+        copy.cacheMaxEntries = cacheMaxEntries;
+        copy.maxItemsPerRequest = maxItemsPerRequest;
+        copy.compressResponses = compressResponses;
+        copy.compressRequestsAboveBytes = compressRequestsAboveBytes;
+        copy.keyCacheTtlMillis = keyCacheTtlMillis;
+        copy.keyCacheMaxUses = keyCacheMaxUses;
+        copy.signingExecutor = signingExecutor;
+        copy.signingEngine = signingEngine;
+        copy.withdrawalJournal = withdrawalJournal;
+        return copy;
+    }
+}
@@ -0,0 +1,18 @@
+package io.block.api;
+
+import io.block.api.utils.BlockIOException;
+
+/**
+ * Receives the elements of a list response one at a time, while the response is still being decoded.
+ * @param <T> Type of the list elements
+ * @see io.block.api.BlockIO#visitAccountAddresses(ElementVisitor)
+ */
+public interface ElementVisitor<T> {
+
+    /**
+     * Called once per element, in the order the API returns them
+     * @param element The decoded element
+     * @throws BlockIOException To abort decoding. The exception is passed on to the caller.
+     */
+    void visit(T element) throws BlockIOException;
+}
@@ -0,0 +1,160 @@
+package io.block.api;
+
+import io.block.api.utils.Constants;
+
+import java.util.Map;
+
+/**
+ * Encodes request parameters as {@code application/x-www-form-urlencoded} (UTF-8, space as '+', the same output as
+ * HttpClient's {@code URLEncodedUtils}) in a single pass into a buffer reused per thread. <br>
+ * Used for both query strings and form bodies, with the API key as the first parameter.
+ */
+final class ParamEncoder {
+
+    /**
+     * Buffers that grew beyond this, e.g. for the signature data of a large withdrawal, are not kept for reuse
+     */
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE[c] = true;
+        }
+        SAFE['-'] = true;
+        SAFE['_'] = true;
+        SAFE['.'] = true;
+        SAFE['*'] = true;
+    }
+
+    private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(1024);
+        }
+    };
+
+    private ParamEncoder() {
+    }
+
+    /**
+     * @return The values separated by commas
+     */
+    static String join(String[] values) {
+        if (values.length == 1) {
+            return values[0];
+        }
+        int length = values.length - 1;
+        for (String value : values) {
+            length += String.valueOf(value).length();
+        }
+        StringBuilder joined = new StringBuilder(length);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                joined.append(',');
+            }
+            joined.append(values[i]);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * @return The URI with the encoded parameters as query string
+     */
+    static String query(String uri, String apiKey, Map<String, String> params) {
+        StringBuilder out = buffer();
+        out.append(uri).append('?');
+        encode(apiKey, params, out);
+        String query = out.toString();
+        release(out);
+        return query;
+    }
+
+    /**
+     * @return The encoded parameters as form body. Encoded parameters are plain ASCII, so chars are copied as bytes.
+     */
+    static byte[] form(String apiKey, Map<String, String> params) {
+        StringBuilder out = buffer();
+        encode(apiKey, params, out);
+        byte[] body = new byte[out.length()];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) out.charAt(i);
+        }
+        release(out);
+        return body;
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder out = BUFFERS.get();
+        out.setLength(0);
+        return out;
+    }
+
+    private static void release(StringBuilder out) {
+        if (out.capacity() > MAX_RETAINED_CHARS) {
+            BUFFERS.remove();
+        }
+    }
+
+    private static void encode(String apiKey, Map<String, String> params, StringBuilder out) {
+        pair(Constants.Params.API_KEY, apiKey, out);
+        if (params != null) {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                out.append('&');
+                pair(entry.getKey(), entry.getValue(), out);
+            }
+        }
+    }
+
+    private static void pair(String name, String value, StringBuilder out) {
+        encode(name, out);
+        if (value != null) {
+            out.append('=');
+            encode(value, out);
+        }
+    }
+
+    static void encode(String s, StringBuilder out) {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                if (SAFE[c]) {
+                    out.append(c);
+                } else if (c == ' ') {
+                    out.append('+');
+                } else {
+                    percent(c, out);
+                }
+            } else if (c < 0x800) {
+                percent(0xC0 | (c >> 6), out);
+                percent(0x80 | (c & 0x3F), out);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+                percent(0xF0 | (codePoint >> 18), out);
+                percent(0x80 | ((codePoint >> 12) & 0x3F), out);
+                percent(0x80 | ((codePoint >> 6) & 0x3F), out);
+                percent(0x80 | (codePoint & 0x3F), out);
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate, replaced like the UTF-8 charset encoder does
+                percent('?', out);
+            } else {
+                percent(0xE0 | (c >> 12), out);
+                percent(0x80 | ((c >> 6) & 0x3F), out);
+                percent(0x80 | (c & 0x3F), out);
+            }
+        }
+    }
+
+    private static void percent(int b, StringBuilder out) {
+        out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+}
@@ -0,0 +1,110 @@
+package io.block.api;
+
+import io.block.api.model.Response;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded LRU cache of API responses with a time to live per API method
+ */
+class ResponseCache {
+
+    private static class Entry {
+        final String method;
+        final Response response;
+        final long expiresAt;
+
+        Entry(String method, Response response, long expiresAt) {
+            this.method = method;
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Long> ttls;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Bumped on every invalidation. Responses requested before an invalidation are not stored afterwards,
+     * so a read racing with a write cannot bring back stale data.
+     */
+    private long generation;
+
+    ResponseCache(Map<String, Long> ttls, final int maxEntries) {
+        this.ttls = new HashMap<String, Long>(ttls);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    boolean isCached(String method) {
+        Long ttl = ttls.get(method);
+        return ttl != null && ttl > 0;
+    }
+
+    synchronized Response get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.incrementAndGet();
+            return entry.response;
+        }
+        if (entry != null) {
+            entries.remove(key);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a response, unless the cache has been invalidated since the request was started
+     * @param requestGeneration The {@link #generation()} at the time the request was started
+     */
+    synchronized void put(String key, String method, Response response, long requestGeneration) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        entries.put(key, new Entry(method, response, System.currentTimeMillis() + ttls.get(method)));
+    }
+
+    synchronized void invalidate(String... methods) {
+        generation++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            String method = it.next().method;
+            for (String m : methods) {
+                if (m.equals(method)) {
+                    it.remove();
+                    break;
+                }
+            }
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size());
+    }
+}
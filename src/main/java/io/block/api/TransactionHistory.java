@@ -0,0 +1,178 @@
+package io.block.api;
+
+import io.block.api.utils.BlockIOException;
+import io.block.api.utils.UncheckedBlockIOException;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily walks the transaction history of an account page by page, newest first. <br>
+ * The first page is requested on the first call to {@link #hasNext()}. While a page is being consumed the next one is
+ * already requested in the background, using the last transaction ID of the current page as {@code before_tx}, so at most
+ * two pages are held at a time. Iteration ends when the API returns an empty page, or at a stop condition set with
+ * {@link #stopAtTxid(String)} or {@link #stopBeforeTime(long)}; no page beyond the stop condition is requested. <br>
+ * Failed API calls are thrown as {@link io.block.api.utils.UncheckedBlockIOException}. Not thread-safe.
+ * @param <T> {@link io.block.api.model.TransactionReceived} or {@link io.block.api.model.TransactionSent}
+ */
+public class TransactionHistory<T> implements Iterator<T>, Closeable {
+
+    private final Function<String, CompletableFuture<List<T>>> pageLoader;
+    private final Function<T, String> txidOf;
+    private final ToLongFunction<T> timeOf;
+
+    private String cursor;
+    private boolean started;
+    private boolean done;
+    private CompletableFuture<List<T>> nextPage;
+    private Iterator<T> page = Collections.emptyIterator();
+    private T next;
+
+    private String stopTxid;
+    private long stopTime = Long.MIN_VALUE;
+
+    TransactionHistory(String beforeTX, Function<String, CompletableFuture<List<T>>> pageLoader, Function<T, String> txidOf, ToLongFunction<T> timeOf) {
+        this.cursor = beforeTX;
+        this.pageLoader = pageLoader;
+        this.txidOf = txidOf;
+        this.timeOf = timeOf;
+    }
+
+    /**
+     * Ends the iteration right before the transaction with the given ID, e.g. the newest one seen by a previous walk
+     * @param txid ID of the first transaction not to return
+     * @return This history
+     */
+    public TransactionHistory<T> stopAtTxid(String txid) {
+        this.stopTxid = txid;
+        return this;
+    }
+
+    /**
+     * Ends the iteration at the first transaction older than the given time
+     * @param time Unix time in seconds, as in the transactions' {@code time} field
+     * @return This history
+     */
+    public TransactionHistory<T> stopBeforeTime(long time) {
+        this.stopTime = time;
+        return this;
+    }
+
+    /**
+     * @return A sequential stream over the remaining transactions. Closing the stream closes this history.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        while (!done && !page.hasNext()) {
+            if (!fetchPage()) {
+                close();
+            }
+        }
+        if (done) {
+            return false;
+        }
+
+        T candidate = page.next();
+        if (isStop(candidate)) {
+            close();
+            return false;
+        }
+        next = candidate;
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T result = next;
+        next = null;
+        return result;
+    }
+
+    /**
+     * Ends the iteration and abandons a page that is still being prefetched
+     */
+    @Override
+    public void close() {
+        done = true;
+        next = null;
+        page = Collections.emptyIterator();
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+    }
+
+    private boolean fetchPage() {
+        if (!started) {
+            started = true;
+            nextPage = pageLoader.apply(cursor);
+        }
+        if (nextPage == null) {
+            return false;
+        }
+
+        List<T> txs = await(nextPage);
+        nextPage = null;
+        if (txs == null || txs.isEmpty()) {
+            return false;
+        }
+
+        // Prefetch the following page while this one is consumed, unless the walk ends within it
+        String last = txidOf.apply(txs.get(txs.size() - 1));
+        if (last != null && !last.equals(cursor) && !containsStop(txs)) {
+            cursor = last;
+            nextPage = pageLoader.apply(last);
+        }
+        page = txs.iterator();
+        return true;
+    }
+
+    private boolean containsStop(List<T> txs) {
+        for (T tx : txs) {
+            if (isStop(tx)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isStop(T tx) {
+        return (stopTxid != null && stopTxid.equals(txidOf.apply(tx))) || timeOf.applyAsLong(tx) < stopTime;
+    }
+
+    private List<T> await(CompletableFuture<List<T>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new UncheckedBlockIOException(new BlockIOException("Interrupted while waiting for transactions."));
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            throw new UncheckedBlockIOException(cause instanceof BlockIOException ? (BlockIOException) cause : new BlockIOException(String.valueOf(cause)));
+        }
+    }
+}
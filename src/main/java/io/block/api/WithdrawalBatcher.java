@@ -0,0 +1,196 @@
+package io.block.api;
+
+import io.block.api.model.FixedAmount;
+import io.block.api.model.Withdrawal;
+import io.block.api.utils.BlockIOException;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Collects single payouts from many threads and sends them as one withdrawal to many addresses. <br>
+ * A batch is sent once its first payout has waited for the batching window, or as soon as it holds the maximum number
+ * of targets, which is at most the 100 block.io accepts per withdrawal. Paying an address that is already part of the
+ * pending batch sends that batch first, so every payout keeps its own amount. Each caller gets a future completed with
+ * the {@link io.block.api.model.Withdrawal} shared by the whole batch. <br>
+ * A failed batch fails all of its payouts and is not retried: a withdrawal that failed while being finalized may have
+ * been sent, so only the caller can tell whether it is safe to pay again. <br>
+ * The batcher holds the secret PIN as a {@code String} for as long as it is reachable, including after
+ * {@link #close()}. Unlike the keys derived from it, a String can't be wiped, so keep the batcher's lifetime short
+ * where memory disclosure is a concern.
+ */
+public class WithdrawalBatcher implements Closeable {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 1000;
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private final BlockIO api;
+    private final String secretPin;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private LinkedHashMap<String, FixedAmount> targets = new LinkedHashMap<String, FixedAmount>();
+    private List<CompletableFuture<Withdrawal>> pending = new ArrayList<CompletableFuture<Withdrawal>>();
+    /**
+     * Number of the pending batch, so that the window timer of a batch that was sent early leaves the next one alone
+     */
+    private long batchNumber;
+    private ScheduledFuture<?> windowTimer;
+
+    public WithdrawalBatcher(BlockIO api, String secretPin) {
+        this(api, secretPin, DEFAULT_WINDOW_MILLIS, MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param api The client to send the batched withdrawals with
+     * @param secretPin The secret PIN you set at block.io to authorize and sign the withdrawals
+     * @param windowMillis How long the first payout of a batch waits for others to join it
+     * @param maxBatchSize Maximum number of targets per withdrawal, between 1 and 100
+     */
+    public WithdrawalBatcher(BlockIO api, String secretPin, long windowMillis, int maxBatchSize) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("maxBatchSize must be between 1 and " + MAX_BATCH_SIZE + ".");
+        }
+        if (secretPin == null || secretPin.equals("")) {
+            throw new IllegalArgumentException("You have to provide your secret pin with withdrawals");
+        }
+        this.api = api;
+        this.secretPin = secretPin;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blockio-withdrawal-batcher");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    /**
+     * Pays the given amount to an address as part of the next batched withdrawal
+     * @param address Target address
+     * @param amount Amount to withdraw
+     * @return A future completed with the {@link io.block.api.model.Withdrawal} that included this payout
+     */
+    public CompletableFuture<Withdrawal> withdrawToAddress(String address, FixedAmount amount) {
+        if (address == null || address.equals("")) {
+            throw new IllegalArgumentException("You have to provide a valid address.");
+        }
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("You have to provide a positive amount to withdraw.");
+        }
+
+        CompletableFuture<Withdrawal> future = new CompletableFuture<Withdrawal>();
+        boolean first;
+        final long number;
+        synchronized (this) {
+            if (targets.containsKey(address)) {
+                flush();
+            }
+            targets.put(address, amount);
+            pending.add(future);
+            if (targets.size() >= maxBatchSize) {
+                // Sent under the lock, so no other payout can join a full batch
+                flush();
+                return future;
+            }
+            first = targets.size() == 1;
+            number = batchNumber;
+        }
+
+        if (first) {
+            try {
+                ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush(number);
+                    }
+                }, windowMillis, TimeUnit.MILLISECONDS);
+                synchronized (this) {
+                    if (batchNumber == number) {
+                        windowTimer = timer;
+                        return future;
+                    }
+                }
+                // Already sent early
+                timer.cancel(false);
+            } catch (RejectedExecutionException e) {
+                // Closed, don't wait for others
+                flush();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Sends all pending payouts right away and stops the batching timer. Payouts added afterwards are sent immediately.
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        flush();
+    }
+
+    private void flush() {
+        flush(-1);
+    }
+
+    /**
+     * Sends the batch with the given number, unless it has already been sent
+     * @param number The batch to send, -1 for whatever is pending
+     */
+    private void flush(long number) {
+        final LinkedHashMap<String, FixedAmount> batch;
+        final List<CompletableFuture<Withdrawal>> futures;
+        synchronized (this) {
+            if (targets.isEmpty() || number >= 0 && number != batchNumber) {
+                return;
+            }
+            batch = targets;
+            futures = pending;
+            targets = new LinkedHashMap<String, FixedAmount>();
+            pending = new ArrayList<CompletableFuture<Withdrawal>>();
+            batchNumber++;
+            if (windowTimer != null) {
+                windowTimer.cancel(false);
+                windowTimer = null;
+            }
+        }
+
+        try {
+            api.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    send(batch, futures);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            failAll(futures, new BlockIOException("Client is closed."));
+        }
+    }
+
+    private void send(LinkedHashMap<String, FixedAmount> batch, List<CompletableFuture<Withdrawal>> futures) {
+        Withdrawal withdrawal;
+        try {
+            withdrawal = api.withdraw(null, null, batch, BlockIO.ParamType.ADDRS, secretPin);
+        } catch (BlockIOException | RuntimeException e) {
+            failAll(futures, e);
+            return;
+        }
+        for (CompletableFuture<Withdrawal> future : futures) {
+            future.complete(withdrawal);
+        }
+    }
+
+    private void failAll(List<CompletableFuture<Withdrawal>> futures, Exception e) {
+        for (CompletableFuture<Withdrawal> future : futures) {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package io.block.api;
+
+import com.google.gson.Gson;
+import io.block.api.utils.ModelTypeAdapters;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Local record of the phases of every withdrawal, to tell after a crash which withdrawals may have moved funds. <br>
+ * The journal is an append-only log in a memory-mapped file. Each record is checksummed, so a record torn by a crash
+ * ends the log on replay. Only the signed payload has to be on disk before it is sent to the API. Threads signing at
+ * the same time share one fsync (group commit), and the other phases are flushed along with it. Losing one of those
+ * records in a power failure only makes a withdrawal look unfinished. <br>
+ * {@link #open(Path)} replays the log. Check {@link #unfinished()} for withdrawals still {@link Phase#SIGNED}, since
+ * those were sent to the API or were about to be. Reconcile them against the account's sent transactions and record
+ * the outcome with {@link #resolve(long, String)}. Then set the journal as {@link ClientConfig#withdrawalJournal}.
+ * When the file is full, it is rewritten with only the unfinished withdrawals, so its size follows the number of
+ * withdrawals in flight and not the history. Thread-safe.
+ */
+public class WithdrawalJournal implements Closeable {
+
+    public static final int DEFAULT_CAPACITY_BYTES = 16 * 1024 * 1024;
+
+    private static final int MAGIC = 0x42494f4a; // "BIOJ"
+    private static final int VERSION = 2;
+    /**
+     * Magic, version and the next withdrawal ID. The ID is kept in the header because compaction drops the records
+     * of finished withdrawals, which would otherwise be the only trace of the IDs handed out.
+     */
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Gson GSON = ModelTypeAdapters.createGson();
+
+    public enum Phase {
+        /** Sign request about to be sent, no funds can have moved */
+        STARTED,
+        /** Sign request answered, no funds can have moved */
+        SIGN_REQUESTED,
+        /** Signed payload about to be sent for finalization, funds may have moved */
+        SIGNED,
+        /** Finalized, see {@link Entry#txid} */
+        FINALIZED,
+        /** Failed before anything was sent for finalization, or resolved as not sent */
+        FAILED
+    }
+
+    /**
+     * The state of one withdrawal. Records carry only what changed, replay merges them into entries.
+     */
+    public static class Entry {
+        public long id;
+        public Phase phase;
+        public long time;
+        public String method;
+        public Map<String, String> params;
+        public String referenceID;
+        public String signedPayload;
+        public String txid;
+        public String error;
+
+        private void merge(Entry record) {
+            phase = record.phase;
+            time = record.time;
+            method = record.method != null ? record.method : method;
+            params = record.params != null ? record.params : params;
+            referenceID = record.referenceID != null ? record.referenceID : referenceID;
+            signedPayload = record.signedPayload != null ? record.signedPayload : signedPayload;
+            txid = record.txid != null ? record.txid : txid;
+            error = record.error != null ? record.error : error;
+        }
+
+        private boolean isDone() {
+            return phase == Phase.FINALIZED || phase == Phase.FAILED;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private long nextId = 1;
+    private long appended;
+    private final Map<Long, Entry> unfinished = new LinkedHashMap<Long, Entry>();
+
+    private final Object syncLock = new Object();
+    private long synced;
+    private boolean syncing;
+
+    private WithdrawalJournal(Path file) {
+        this.file = file;
+    }
+
+    public static WithdrawalJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * Opens the journal, creating it if it does not exist, and replays it
+     * @param file The journal file
+     * @param capacityBytes Size the file is mapped with, grows if the unfinished withdrawals need more
+     * @return The journal, ready to be appended to
+     * @throws IOException If the file can't be mapped or is not a withdrawal journal
+     */
+    public static WithdrawalJournal open(Path file, int capacityBytes) throws IOException {
+        if (capacityBytes < 4096) {
+            throw new IllegalArgumentException("capacityBytes must be at least 4096.");
+        }
+        WithdrawalJournal journal = new WithdrawalJournal(file);
+        journal.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = journal.channel.size();
+            journal.buffer = journal.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, capacityBytes));
+            if (size == 0) {
+                writeHeader(journal.buffer, journal.nextId);
+                journal.buffer.force();
+                journal.position = HEADER_BYTES;
+            } else {
+                journal.replay(size);
+            }
+        } catch (IOException | RuntimeException e) {
+            journal.channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void replay(long size) throws IOException {
+        if (size < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a withdrawal journal: " + file);
+        }
+        nextId = Math.max(nextId, buffer.getLong(8));
+
+        int pos = HEADER_BYTES;
+        boolean torn = false;
+        while (pos + RECORD_HEADER_BYTES <= buffer.capacity()) {
+            int length = buffer.getInt(pos);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || length > buffer.capacity() - pos - RECORD_HEADER_BYTES) {
+                torn = true;
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.position(pos + RECORD_HEADER_BYTES);
+            buffer.get(payload);
+            if (crc(payload) != buffer.getInt(pos + 4)) {
+                torn = true;
+                break;
+            }
+            apply(GSON.fromJson(new String(payload, UTF_8), Entry.class));
+            pos += RECORD_HEADER_BYTES + length;
+        }
+        position = pos;
+
+        if (torn) {
+            // Clear what the crash left behind, so records appended from here on can't run into it
+            for (int i = pos; i < size; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.force();
+        }
+    }
+
+    private void apply(Entry record) {
+        nextId = Math.max(nextId, record.id + 1);
+        Entry entry = unfinished.get(record.id);
+        if (entry == null) {
+            entry = new Entry();
+            entry.id = record.id;
+        }
+        entry.merge(record);
+        if (entry.isDone()) {
+            unfinished.remove(record.id);
+        } else {
+            unfinished.put(record.id, entry);
+        }
+    }
+
+    /**
+     * @return Copies of the withdrawals that were neither finalized nor failed, oldest first
+     */
+    public synchronized List<Entry> unfinished() {
+        List<Entry> entries = new ArrayList<Entry>(unfinished.size());
+        for (Entry entry : unfinished.values()) {
+            Entry copy = new Entry();
+            copy.id = entry.id;
+            copy.merge(entry);
+            entries.add(copy);
+        }
+        return entries;
+    }
+
+    /**
+     * Records the outcome of an unfinished withdrawal that was reconciled by hand, durably
+     * @param id The ID of the withdrawal, see {@link #unfinished()}
+     * @param txid The ID of the transaction that was sent, or null if the withdrawal was never finalized
+     * @throws IOException
+     */
+    public void resolve(long id, String txid) throws IOException {
+        Entry record = record(id, txid != null ? Phase.FINALIZED : Phase.FAILED);
+        record.txid = txid;
+        record.error = txid == null ? "Resolved as not sent" : null;
+        sync(append(record));
+    }
+
+    long started(String method, Map<String, String> params) throws IOException {
+        long id;
+        synchronized (this) {
+            id = nextId++;
+        }
+        Entry record = record(id, Phase.STARTED);
+        record.method = method;
+        record.params = new HashMap<String, String>(params);
+        append(record);
+        return id;
+    }
+
+    void signRequested(long id, String referenceID) throws IOException {
+        Entry record = record(id, Phase.SIGN_REQUESTED);
+        record.referenceID = referenceID;
+        append(record);
+    }
+
+    /**
+     * Returns once the signed payload is on disk, together with everything appended before it
+     */
+    void signed(long id, String signedPayload) throws IOException {
+        Entry record = record(id, Phase.SIGNED);
+        record.signedPayload = signedPayload;
+        sync(append(record));
+    }
+
+    void finalized(long id, String txid) throws IOException {
+        Entry record = record(id, Phase.FINALIZED);
+        record.txid = txid;
+        append(record);
+    }
+
+    void failed(long id, String error) throws IOException {
+        Entry record = record(id, Phase.FAILED);
+        record.error = error;
+        append(record);
+    }
+
+    private static Entry record(long id, Phase phase) {
+        Entry record = new Entry();
+        record.id = id;
+        record.phase = phase;
+        record.time = System.currentTimeMillis();
+        return record;
+    }
+
+    /**
+     * @return The sequence number of the record, to wait for with {@link #sync(long)}
+     */
+    private long append(Entry record) throws IOException {
+        byte[] payload = GSON.toJson(record).getBytes(UTF_8);
+        int crc = crc(payload);
+
+        synchronized (this) {
+            if (channel == null) {
+                throw new IOException("Withdrawal journal is closed.");
+            }
+            if (position + RECORD_HEADER_BYTES + payload.length > buffer.capacity()) {
+                compact(RECORD_HEADER_BYTES + payload.length);
+            }
+            buffer.position(position + RECORD_HEADER_BYTES);
+            buffer.put(payload);
+            buffer.putInt(position + 4, crc);
+            // Length last, replay stops at a zero length
+            buffer.putInt(position, payload.length);
+            position += RECORD_HEADER_BYTES + payload.length;
+            apply(record);
+            return ++appended;
+        }
+    }
+
+    /**
+     * Waits until the given record is on disk. The first waiting thread forces the file for everyone who appended
+     * before it starts, later ones wait for the next round.
+     */
+    private void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            while (synced < sequence) {
+                if (!syncing) {
+                    syncing = true;
+                    break;
+                }
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the withdrawal journal.");
+                }
+            }
+            if (synced >= sequence) {
+                return;
+            }
+        }
+
+        long target = 0;
+        try {
+            MappedByteBuffer toForce;
+            synchronized (this) {
+                if (channel == null) {
+                    throw new IOException("Withdrawal journal is closed.");
+                }
+                target = appended;
+                toForce = buffer;
+            }
+            toForce.force();
+        } catch (IOException | RuntimeException e) {
+            target = 0;
+            throw e;
+        } finally {
+            synchronized (syncLock) {
+                syncing = false;
+                synced = Math.max(synced, target);
+                syncLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the unfinished withdrawals. Done automatically when the file is full.
+     * @throws IOException
+     */
+    public synchronized void compact() throws IOException {
+        if (channel == null) {
+            throw new IOException("Withdrawal journal is closed.");
+        }
+        compact(0);
+    }
+
+    private void compact(int needed) throws IOException {
+        List<byte[]> payloads = new ArrayList<byte[]>(unfinished.size());
+        long live = HEADER_BYTES + needed;
+        for (Entry entry : unfinished.values()) {
+            byte[] payload = GSON.toJson(entry).getBytes(UTF_8);
+            payloads.add(payload);
+            live += RECORD_HEADER_BYTES + payload.length;
+        }
+        long capacity = buffer.capacity();
+        while (live * 2 > capacity) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Withdrawal journal is full.");
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        FileChannel newChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer newBuffer;
+        int pos = HEADER_BYTES;
+        try {
+            newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            writeHeader(newBuffer, nextId);
+            for (byte[] payload : payloads) {
+                newBuffer.position(pos + RECORD_HEADER_BYTES);
+                newBuffer.put(payload);
+                newBuffer.putInt(pos + 4, crc(payload));
+                newBuffer.putInt(pos, payload.length);
+                pos += RECORD_HEADER_BYTES + payload.length;
+            }
+            newBuffer.force();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            newChannel.close();
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        syncDirectory();
+
+        // Everything appended so far is in the new file and on disk
+        channel.close();
+        channel = newChannel;
+        buffer = newBuffer;
+        position = pos;
+        synchronized (syncLock) {
+            synced = Math.max(synced, appended);
+        }
+    }
+
+    private static void writeHeader(MappedByteBuffer buffer, long nextId) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, nextId);
+    }
+
+    private void syncDirectory() {
+        Path dir = file.toAbsolutePath().getParent();
+        try (FileChannel dirChannel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            dirChannel.force(true);
+        } catch (IOException e) {
+            // Not supported on all platforms, the rename is still atomic
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Forces all records to disk and closes the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        buffer.force();
+        channel.close();
+        channel = null;
+        synchronized (syncLock) {
+            synced = appended;
+            syncLock.notifyAll();
+        }
+    }
+}
@@ -6,8 +6,8 @@ public class AccountBalance {
     public String network;
 
     @SerializedName("available_balance")
-    public String availableBalance;
+    public FixedAmount availableBalance;
 
     @SerializedName("pending_received_balance")
-    public String pedingReceivedBalance;
+    public FixedAmount pedingReceivedBalance;
 }
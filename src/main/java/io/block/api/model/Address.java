@@ -11,8 +11,8 @@ public class Address {
     public String label;
 
     @SerializedName("available_balance")
-    public String availableBalance;
+    public FixedAmount availableBalance;
 
     @SerializedName("pending_received_balance")
-    public String pedingReceivedBalance;
+    public FixedAmount pedingReceivedBalance;
 }
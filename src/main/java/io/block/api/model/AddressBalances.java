@@ -8,10 +8,10 @@ public class AddressBalances {
     public String network;
 
     @SerializedName("available_balance")
-    public String availableBalance;
+    public FixedAmount availableBalance;
 
     @SerializedName("pending_received_balance")
-    public String pedingReceivedBalance;
+    public FixedAmount pedingReceivedBalance;
 
     public List<Balance> balances;
 }
@@ -12,8 +12,8 @@ public class AddressByLabel {
     public String label;
 
     @SerializedName("available_balance")
-    public String availableBalance;
+    public FixedAmount availableBalance;
 
     @SerializedName("pending_received_balance")
-    public String pedingReceivedBalance;
+    public FixedAmount pedingReceivedBalance;
 }
@@ -2,5 +2,5 @@ package io.block.api.model;
 
 public class Amount {
     public String recipient;
-    public String amount;
+    public FixedAmount amount;
 }
@@ -0,0 +1,206 @@
+package io.block.api.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of coins held as a count of the smallest unit (10<sup>-8</sup> coins, i.e. satoshis) in a single {@code long}. <br>
+ * Immutable. Parsing reads the decimal digits directly, without going through {@link java.math.BigDecimal} or {@code double},
+ * and {@link #toString()} gives the 8 decimal plain notation the API uses, e.g. {@code 12.50000000}.
+ * Use {@link #units()} to sum large numbers of amounts without allocating.
+ */
+public final class FixedAmount extends Number implements Comparable<FixedAmount> {
+
+    /**
+     * Number of decimal places
+     */
+    public static final int SCALE = 8;
+
+    public static final long UNITS_PER_COIN = 100000000L;
+
+    public static final FixedAmount ZERO = new FixedAmount(0);
+
+    private static final long serialVersionUID = 1L;
+
+    private final long units;
+
+    private FixedAmount(long units) {
+        this.units = units;
+    }
+
+    /**
+     * @param units Amount in satoshis
+     * @return The amount
+     */
+    public static FixedAmount ofUnits(long units) {
+        return units == 0 ? ZERO : new FixedAmount(units);
+    }
+
+    /**
+     * @param coins Amount in coins, rounded half up to 8 decimals
+     * @return The amount
+     */
+    public static FixedAmount of(double coins) {
+        if (Double.isNaN(coins) || Double.isInfinite(coins) || Math.abs(coins) >= Long.MAX_VALUE / (double) UNITS_PER_COIN) {
+            throw new IllegalArgumentException("You have to provide a finite amount, got " + coins);
+        }
+        return ofUnits(Math.round(coins * UNITS_PER_COIN));
+    }
+
+    /**
+     * Converts any {@link java.lang.Number}. Integral types are taken as whole coins, {@link java.math.BigDecimal}
+     * exactly and everything else as {@code double}.
+     * @param number The amount in coins
+     * @return The amount
+     */
+    public static FixedAmount valueOf(Number number) {
+        if (number instanceof FixedAmount) {
+            return (FixedAmount) number;
+        } else if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            return ofUnits(Math.multiplyExact(number.longValue(), UNITS_PER_COIN));
+        } else if (number instanceof BigDecimal) {
+            return parse(((BigDecimal) number).toPlainString());
+        }
+        return of(number.doubleValue());
+    }
+
+    /**
+     * Parses a decimal number such as {@code 12.5}, {@code -0.00010000} or {@code 3}. Digits beyond the 8th decimal
+     * are rounded half up.
+     * @param text The amount in coins
+     * @return The amount
+     * @throws NumberFormatException If the text is not a decimal number or out of range
+     */
+    public static FixedAmount parse(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+
+        long units = 0;
+        int decimals = -1;
+        boolean digits = false;
+        boolean roundUp = false;
+        try {
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    digits = true;
+                    if (decimals < SCALE) {
+                        units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                        if (decimals >= 0) {
+                            decimals++;
+                        }
+                    } else if (decimals == SCALE) {
+                        roundUp = c >= '5';
+                        decimals++;
+                    }
+                } else if (c == '.' && decimals < 0) {
+                    decimals = 0;
+                } else if (c == 'e' || c == 'E') {
+                    // Exponent notation is rare enough to take the slow path
+                    return ofUnits(new BigDecimal(text.toString()).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+                } else {
+                    throw new NumberFormatException("Invalid amount: " + text);
+                }
+            }
+            if (!digits) {
+                throw new NumberFormatException("Invalid amount: " + text);
+            }
+            for (int scale = Math.max(decimals, 0); scale < SCALE; scale++) {
+                units = Math.multiplyExact(units, 10);
+            }
+            if (roundUp) {
+                units = Math.addExact(units, 1);
+            }
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+        return ofUnits(negative ? -units : units);
+    }
+
+    /**
+     * @return The amount in satoshis
+     */
+    public long units() {
+        return units;
+    }
+
+    public FixedAmount plus(FixedAmount other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public FixedAmount minus(FixedAmount other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    /**
+     * @return The whole coins, truncated
+     */
+    @Override
+    public long longValue() {
+        return units / UNITS_PER_COIN;
+    }
+
+    /**
+     * @return The whole coins, truncated
+     */
+    @Override
+    public int intValue() {
+        return (int) longValue();
+    }
+
+    @Override
+    public double doubleValue() {
+        return (double) units / UNITS_PER_COIN;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) doubleValue();
+    }
+
+    @Override
+    public int compareTo(FixedAmount other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FixedAmount && ((FixedAmount) o).units == units;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (units ^ (units >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        // Long.MIN_VALUE has no positive counterpart, format from the negated digits instead
+        long abs = units;
+        boolean negative = abs < 0;
+        char[] buf = new char[21];
+        int pos = buf.length;
+        for (int i = 0; i < SCALE; i++) {
+            buf[--pos] = (char) ('0' + Math.abs(abs % 10));
+            abs /= 10;
+        }
+        buf[--pos] = '.';
+        do {
+            buf[--pos] = (char) ('0' + Math.abs(abs % 10));
+            abs /= 10;
+        } while (abs != 0);
+        if (negative) {
+            buf[--pos] = '-';
+        }
+        return new String(buf, pos, buf.length - pos);
+    }
+}
@@ -3,7 +3,7 @@ package io.block.api.model;
 import com.google.gson.annotations.SerializedName;
 
 public class Price {
-    public String price;
+    public FixedAmount price;
 
     @SerializedName("price_base")
     public String priceBase;
@@ -15,7 +15,7 @@ public class TransactionSent {
     public int confirmations;
 
     @SerializedName("total_amount_sent")
-    public String totalAmountSent;
+    public FixedAmount totalAmountSent;
 
     public List<Amount> amountsSent;
     public List<String> senders;
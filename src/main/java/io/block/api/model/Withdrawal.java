@@ -7,14 +7,14 @@ public class Withdrawal {
     public String txid;
 
     @SerializedName("amount_withdrawn")
-    public String amountWithdrawn;
+    public FixedAmount amountWithdrawn;
 
     @SerializedName("amount_sent")
-    public String amountSent;
+    public FixedAmount amountSent;
 
     @SerializedName("network_fee")
-    public String networkFee;
+    public FixedAmount networkFee;
 
     @SerializedName("blockio_fee")
-    public String blockIOFee;
+    public FixedAmount blockIOFee;
 }
@@ -0,0 +1,94 @@
+package io.block.api.transport;
+
+import io.block.api.ClientConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * gzip/deflate content coding shared by the transports. Responses are decoded as a stream on top of the body,
+ * so decompressed data goes straight into the JSON decoder without an intermediate buffer.
+ */
+final class ContentCoding {
+
+    static final String ACCEPT_ENCODING = "Accept-Encoding";
+    static final String CONTENT_ENCODING = "Content-Encoding";
+    static final String ACCEPTED = "gzip, deflate";
+    static final String GZIP = "gzip";
+
+    private ContentCoding() {
+    }
+
+    /**
+     * @return Whether the request body should be sent gzip compressed under the given config
+     */
+    static boolean compressRequest(ClientConfig config, TransportRequest request) {
+        return request.body != null && config.compressRequestsAboveBytes >= 0 && request.body.length >= config.compressRequestsAboveBytes;
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 32);
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        try {
+            gzip.write(data);
+        } finally {
+            gzip.close();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Wraps the body in a decoder matching the response's {@code Content-Encoding}
+     * @param body The raw body, may be null
+     * @param contentEncoding The header value, may be null
+     * @return The decoding stream, or the body itself if it isn't compressed
+     */
+    static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (body == null || contentEncoding == null) {
+            return body;
+        }
+        String coding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        if (coding.equals("gzip") || coding.equals("x-gzip")) {
+            return new GZIPInputStream(body);
+        } else if (coding.equals("deflate")) {
+            return inflate(body);
+        }
+        return body;
+    }
+
+    /**
+     * "deflate" is meant to be zlib wrapped, but some servers send raw deflate data. Tell them apart by the zlib header.
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream in = new PushbackInputStream(body, 2);
+        int first = in.read();
+        if (first < 0) {
+            return in;
+        }
+        int second = in.read();
+        if (second >= 0) {
+            in.unread(second);
+        }
+        in.unread(first);
+        boolean zlib = second >= 0 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+        final Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(in, inflater) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    // Not done by InflaterInputStream for an Inflater passed in
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
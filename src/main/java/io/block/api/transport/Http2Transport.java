@@ -0,0 +1,138 @@
+package io.block.api.transport;
+
+import io.block.api.ClientConfig;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link io.block.api.transport.Transport} that speaks HTTP/2 and multiplexes all concurrent requests as streams over
+ * a single connection, instead of holding one connection per request in flight. <br>
+ * Needs Apache HttpClient 5 on the classpath, which is an optional dependency of this library:
+ * <pre>
+ * &lt;dependency&gt;
+ *   &lt;groupId&gt;org.apache.httpcomponents.client5&lt;/groupId&gt;
+ *   &lt;artifactId&gt;httpclient5&lt;/artifactId&gt;
+ *   &lt;version&gt;5.2.3&lt;/version&gt;
+ * &lt;/dependency&gt;
+ * </pre>
+ * HTTPS connections negotiate HTTP/2 via ALPN, which needs Java 9 or later. Plain HTTP connections use HTTP/2 with prior knowledge.
+ */
+public class Http2Transport implements Transport {
+
+    private static final ContentType FORM = ContentType.create("application/x-www-form-urlencoded", "UTF-8");
+
+    private final ClientConfig config;
+    private final CloseableHttpAsyncClient client;
+
+    public Http2Transport(ClientConfig config) {
+        this.config = config.copy();
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setSoTimeout(Timeout.ofMilliseconds(config.socketTimeoutMillis))
+                .build();
+
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(config.connectTimeoutMillis))
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofMilliseconds(config.socketTimeoutMillis))
+                .build();
+
+        client = H2AsyncClientBuilder.create()
+                .setIOReactorConfig(reactorConfig)
+                .setDefaultConnectionConfig(connectionConfig)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(TimeValue.ofMilliseconds(config.idleConnectionTimeoutMillis))
+                .build();
+        client.start();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        try {
+            return executeAsync(request).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for response.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        final CompletableFuture<TransportResponse> future = new CompletableFuture<TransportResponse>();
+        SimpleRequestBuilder builder;
+        switch (request.method) {
+            case POST:
+                builder = SimpleRequestBuilder.post(request.uri);
+                if (ContentCoding.compressRequest(config, request)) {
+                    try {
+                        builder.setBody(ContentCoding.gzip(request.body), FORM).setHeader(ContentCoding.CONTENT_ENCODING, ContentCoding.GZIP);
+                    } catch (IOException e) {
+                        future.completeExceptionally(e);
+                        return future;
+                    }
+                } else {
+                    builder.setBody(request.body, FORM);
+                }
+                break;
+            default:
+                builder = SimpleRequestBuilder.get(request.uri);
+        }
+        if (config.compressResponses) {
+            builder.setHeader(ContentCoding.ACCEPT_ENCODING, ContentCoding.ACCEPTED);
+        }
+        SimpleHttpRequest httpRequest = builder.build();
+
+        client.execute(httpRequest, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                try {
+                    Header encoding = response.getFirstHeader(ContentCoding.CONTENT_ENCODING);
+                    byte[] bytes = response.getBodyBytes();
+                    InputStream body = bytes != null ? ContentCoding.decode(new ByteArrayInputStream(bytes), encoding != null ? encoding.getValue() : null) : null;
+                    future.complete(new TransportResponse(response.getCode(), body, null));
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex instanceof IOException ? ex : new IOException(ex));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close(CloseMode.GRACEFUL);
+    }
+}
@@ -0,0 +1,203 @@
+package io.block.api.transport;
+
+import io.block.api.ClientConfig;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.*;
+
+/**
+ * The default {@link io.block.api.transport.Transport}, built on Apache HttpClient. <br>
+ * Blocking calls share one pool of HTTP/1.1 keep-alive connections. Idle and expired connections are evicted by a
+ * background thread. Non-blocking calls run on Apache HttpAsyncClient with its own NIO pool, created on first use.
+ */
+public class HttpClientTransport implements Transport {
+
+    private final ClientConfig config;
+    private final ConnectionKeepAliveStrategy keepAliveStrategy;
+    private final RequestConfig requestConfig;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final ScheduledExecutorService connectionEvictor;
+
+    private CloseableHttpAsyncClient asyncClient;
+
+    public HttpClientTransport(ClientConfig config) {
+        this.config = config.copy();
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(config.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute);
+
+        requestConfig = RequestConfig.custom()
+                .setConnectTimeout(config.connectTimeoutMillis)
+                .setSocketTimeout(config.socketTimeoutMillis)
+                .setConnectionRequestTimeout(config.connectionRequestTimeoutMillis)
+                .build();
+
+        final long keepAliveMillis = config.keepAliveMillis;
+        keepAliveStrategy = new ConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                // Prefer what the server announces, fall back to our own default otherwise
+                long announced = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                return announced > 0 ? announced : keepAliveMillis;
+            }
+        };
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                // Content coding is handled by ContentCoding, the same way for both clients
+                .disableContentCompression()
+                .build();
+
+        connectionEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "blockio-connection-evictor");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        final long idleTimeout = config.idleConnectionTimeoutMillis;
+        long evictionInterval = Math.max(1000, idleTimeout / 2);
+        connectionEvictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        CloseableHttpResponse response = client.execute(toHttpRequest(request));
+        try {
+            HttpEntity entity = response.getEntity();
+            InputStream body = entity != null ? ContentCoding.decode(entity.getContent(), contentEncoding(entity)) : null;
+            return new TransportResponse(response.getStatusLine().getStatusCode(), body, response);
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransportResponse> executeAsync(TransportRequest request) {
+        final CompletableFuture<TransportResponse> future = new CompletableFuture<TransportResponse>();
+        HttpUriRequest httpRequest;
+        try {
+            httpRequest = toHttpRequest(request);
+        } catch (IOException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        asyncClient().execute(httpRequest, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    // The async client has buffered the whole entity already, it is decompressed while being parsed
+                    HttpEntity entity = response.getEntity();
+                    InputStream body = entity != null ? ContentCoding.decode(new ByteArrayInputStream(EntityUtils.toByteArray(entity)), contentEncoding(entity)) : null;
+                    future.complete(new TransportResponse(response.getStatusLine().getStatusCode(), body, null));
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex instanceof IOException ? ex : new IOException(ex));
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    private HttpUriRequest toHttpRequest(TransportRequest request) throws IOException {
+        HttpUriRequest httpRequest;
+        switch (request.method) {
+            case POST:
+                HttpPost post = new HttpPost(request.uri);
+                ContentType form = ContentType.create("application/x-www-form-urlencoded", "UTF-8");
+                if (ContentCoding.compressRequest(config, request)) {
+                    post.setEntity(new ByteArrayEntity(ContentCoding.gzip(request.body), form));
+                    post.setHeader(ContentCoding.CONTENT_ENCODING, ContentCoding.GZIP);
+                } else {
+                    post.setEntity(new ByteArrayEntity(request.body, form));
+                }
+                httpRequest = post;
+                break;
+            default:
+                httpRequest = new HttpGet(request.uri);
+        }
+        if (config.compressResponses) {
+            httpRequest.setHeader(ContentCoding.ACCEPT_ENCODING, ContentCoding.ACCEPTED);
+        }
+        return httpRequest;
+    }
+
+    private static String contentEncoding(HttpEntity entity) {
+        Header header = entity.getContentEncoding();
+        return header != null ? header.getValue() : null;
+    }
+
+    private synchronized CloseableHttpAsyncClient asyncClient() {
+        if (asyncClient == null) {
+            asyncClient = HttpAsyncClients.custom()
+                    .setMaxConnTotal(config.maxConnections)
+                    .setMaxConnPerRoute(config.maxConnectionsPerRoute)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setKeepAliveStrategy(keepAliveStrategy)
+                    .build();
+            asyncClient.start();
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Shuts down both connection pools
+     */
+    @Override
+    public void close() throws IOException {
+        connectionEvictor.shutdownNow();
+        try {
+            client.close();
+        } finally {
+            synchronized (this) {
+                if (asyncClient != null) {
+                    asyncClient.close();
+                }
+            }
+        }
+    }
+}
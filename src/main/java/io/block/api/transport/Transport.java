@@ -0,0 +1,29 @@
+package io.block.api.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The HTTP layer {@link io.block.api.BlockIO} is built on. <br>
+ * Implementations must be thread-safe. They are owned by the client they are handed to and closed together with it.
+ * @see io.block.api.transport.HttpClientTransport
+ * @see io.block.api.transport.Http2Transport
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Executes a request, blocking until the response headers have arrived
+     * @param request The request to execute
+     * @return The response. Callers must close it.
+     * @throws IOException On any network problem
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Executes a request without blocking the calling thread
+     * @param request The request to execute
+     * @return A future completed with the response, or exceptionally with an {@link java.io.IOException}. Callers must close the response.
+     */
+    CompletableFuture<TransportResponse> executeAsync(TransportRequest request);
+}
@@ -0,0 +1,36 @@
+package io.block.api.transport;
+
+/**
+ * A fully prepared HTTP request to the block.io API, as handed to a {@link io.block.api.transport.Transport}.
+ * Parameters are already encoded into the URI (GET) or the body (POST).
+ */
+public class TransportRequest {
+
+    public static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded; charset=UTF-8";
+
+    public enum Method {
+        GET, POST
+    }
+
+    public final Method method;
+    public final String uri;
+
+    /**
+     * URL-encoded form body for POST requests, null for GET requests
+     */
+    public final byte[] body;
+
+    private TransportRequest(Method method, String uri, byte[] body) {
+        this.method = method;
+        this.uri = uri;
+        this.body = body;
+    }
+
+    public static TransportRequest get(String uri) {
+        return new TransportRequest(Method.GET, uri, null);
+    }
+
+    public static TransportRequest post(String uri, byte[] formBody) {
+        return new TransportRequest(Method.POST, uri, formBody);
+    }
+}
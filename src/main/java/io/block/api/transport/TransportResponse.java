@@ -0,0 +1,46 @@
+package io.block.api.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Status and body of an HTTP response. The body has to be closed after reading it, which allows
+ * the transport to reuse the underlying connection.
+ */
+public class TransportResponse implements Closeable {
+    public final int statusCode;
+    private final InputStream body;
+    private final Closeable resource;
+
+    /**
+     * @param statusCode HTTP status code
+     * @param body The response body, not yet consumed
+     * @param resource Released on {@link #close()}, e.g. the underlying connection. May be null.
+     */
+    public TransportResponse(int statusCode, InputStream body, Closeable resource) {
+        this.statusCode = statusCode;
+        this.body = body != null ? body : new ByteArrayInputStream(new byte[0]);
+        this.resource = resource;
+    }
+
+    public TransportResponse(int statusCode, byte[] body) {
+        this(statusCode, body != null ? new ByteArrayInputStream(body) : null, null);
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            body.close();
+        } finally {
+            if (resource != null) {
+                resource.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.block.api.utils;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
+import org.bouncycastle.crypto.signers.ECDSASigner;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+
+import java.math.BigInteger;
+
+/**
+ * Signs with BouncyCastle's {@link ECDSASigner} on the shared {@link Secp256k1} domain. The default engine.
+ */
+public class BouncyCastleSigningEngine implements SigningEngine {
+
+    @Override
+    public byte[] publicKey(byte[] privKey) throws BlockIOException {
+        return Secp256k1.multiplyGenerator(SigningUtils.privateScalar(privKey, Secp256k1.DOMAIN.getN())).getEncoded(true);
+    }
+
+    @Override
+    public byte[] sign(byte[] hash, byte[] privKey) throws BlockIOException {
+        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
+        signer.init(true, new ECPrivateKeyParameters(SigningUtils.privateScalar(privKey, Secp256k1.DOMAIN.getN()), Secp256k1.DOMAIN));
+        BigInteger[] sigs = signer.generateSignature(hash);
+        return SigningUtils.encodeSignature(sigs[0], sigs[1], Secp256k1.DOMAIN.getN());
+    }
+}
@@ -1,5 +1,10 @@
 package io.block.api.utils;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 public class Constants {
 
     public static final String BASE_URL = "https://block.io/api/v";
@@ -23,6 +28,12 @@ public class Constants {
         public static final String IS_GREEN_TX = "is_green_transaction";
         public static final String GET_TXNS = "get_transactions";
 
+        /**
+         * Methods that only read data. Calling them repeatedly has no side effects.
+         */
+        public static final Set<String> READ_ONLY = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+                GET_ACCOUNT_BALANCE, GET_MY_ADDRESSES, GET_ADDR_BALANCE, GET_ADDR_BY_LABEL,
+                GET_PRICES, IS_GREEN_ADDR, IS_GREEN_TX, GET_TXNS)));
     }
 
     public static class Params {
@@ -58,7 +69,11 @@ public class Constants {
     }
 
     public static String buildUri(String method, boolean removeTrailingSlash) {
-        String s = BASE_URL + API_VERSION + "/" + method;
+        return buildUri(BASE_URL + API_VERSION, method, removeTrailingSlash);
+    }
+
+    public static String buildUri(String apiUrl, String method, boolean removeTrailingSlash) {
+        String s = apiUrl + "/" + method;
         return removeTrailingSlash ? s : s + "/";
     }
 
@@ -0,0 +1,123 @@
+package io.block.api.utils;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven hex encoding and decoding. <br>
+ * Besides the allocating convenience methods, encoder and decoder can write into buffers supplied by the caller, and
+ * {@link #equalsHex(byte[], CharSequence)} compares bytes against a hex string in constant time without decoding it first.
+ */
+final class Hex {
+
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Value of each ASCII character as a hex digit, -1 if it is none
+     */
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private Hex() {
+    }
+
+    /**
+     * @param data Bytes to encode
+     * @return Lower case hex string, two characters per byte
+     */
+    static String encode(byte[] data) {
+        char[] out = new char[data.length * 2];
+        encode(data, 0, data.length, out, 0);
+        return new String(out);
+    }
+
+    /**
+     * Writes {@code 2 * length} lower case hex characters to {@code out}, starting at {@code outOffset}
+     * @return Number of characters written
+     */
+    static int encode(byte[] data, int offset, int length, char[] out, int outOffset) {
+        for (int i = 0; i < length; i++) {
+            int b = data[offset + i] & 0xff;
+            out[outOffset++] = DIGITS[b >>> 4];
+            out[outOffset++] = DIGITS[b & 0x0f];
+        }
+        return length * 2;
+    }
+
+    /**
+     * @param hex Hex string of even length, upper or lower case
+     * @return The decoded bytes
+     * @throws IllegalArgumentException If the string is not valid hex
+     */
+    static byte[] decode(CharSequence hex) {
+        byte[] out = new byte[hex.length() / 2];
+        decode(hex, out, 0);
+        return out;
+    }
+
+    /**
+     * Writes {@code hex.length() / 2} bytes to {@code out}, starting at {@code outOffset}
+     * @return Number of bytes written
+     * @throws IllegalArgumentException If the string is not valid hex
+     */
+    static int decode(CharSequence hex, byte[] out, int outOffset) {
+        int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException("Hex string has odd length.");
+        }
+        for (int i = 0; i < length; i += 2) {
+            int high = value(hex.charAt(i));
+            int low = value(hex.charAt(i + 1));
+            if ((high | low) < 0) {
+                throw new IllegalArgumentException("Invalid hex character at " + (high < 0 ? i : i + 1) + ".");
+            }
+            out[outOffset++] = (byte) ((high << 4) | low);
+        }
+        return length / 2;
+    }
+
+    /**
+     * Compares bytes with the bytes a hex string stands for. Takes the same time for all inputs of the same length.
+     * @return True if the hex string is valid and decodes to exactly the given bytes
+     */
+    static boolean equalsHex(byte[] bytes, CharSequence hex) {
+        if (hex == null || hex.length() != bytes.length * 2) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            int high = value(hex.charAt(2 * i));
+            int low = value(hex.charAt(2 * i + 1));
+            // An invalid digit is -1, which sets bits above the low byte and so never matches
+            diff |= ((high << 4) | low) ^ (bytes[i] & 0xff);
+        }
+        return diff == 0;
+    }
+
+    /**
+     * Compares two byte arrays in time depending only on their length
+     */
+    static boolean constantTimeEquals(byte[] a, byte[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        int diff = 0;
+        for (int i = 0; i < a.length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    private static int value(char c) {
+        return c < 128 ? VALUES[c] : -1;
+    }
+}
@@ -0,0 +1,165 @@
+package io.block.api.utils;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+
+import java.io.UnsupportedEncodingException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps private keys decrypted from an encrypted passphrase in memory, so that withdrawals with the same passphrase
+ * and PIN skip the PBKDF2 key derivation, decryption and public key derivation. <br>
+ * Entries are keyed on a SHA-256 fingerprint of the encrypted passphrase and are only handed out for the PIN they were
+ * derived with. The PIN itself is not stored, only a salted hash to verify it. An entry is wiped once it is older than the
+ * TTL or has been used the maximum number of times, and all entries are wiped by {@link #zeroize()}. Key bytes are
+ * overwritten with zeros when wiped. Thread-safe.
+ */
+public class KeyCache {
+
+    private final long ttlMillis;
+    private final int maxUses;
+    private final byte[] salt = new byte[16];
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+    /**
+     * @param ttlMillis How long a key stays cached after it has been derived
+     * @param maxUses How many withdrawals may be signed from the cache before the key has to be derived again
+     */
+    public KeyCache(long ttlMillis, int maxUses) {
+        if (ttlMillis <= 0 || maxUses < 1) {
+            throw new IllegalArgumentException("You have to provide a positive TTL and at least one use.");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxUses = maxUses;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * Wipes all cached keys
+     */
+    public synchronized void zeroize() {
+        for (Entry entry : entries.values()) {
+            entry.keys.wipe();
+        }
+        entries.clear();
+    }
+
+    /**
+     * @return Number of keys currently cached, including expired ones not swept yet
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Counts as one use of the cached key
+     * @return A copy of the cached keys, to be wiped by the caller, or null if there is no valid entry for the PIN
+     */
+    synchronized KeyPair get(byte[] encryptedPassphrase, String pin) {
+        sweep();
+        String fingerprint = fingerprint(encryptedPassphrase);
+        Entry entry = entries.get(fingerprint);
+        if (entry == null || !Hex.constantTimeEquals(entry.pinHash, pinHash(fingerprint, pin))) {
+            return null;
+        }
+        if (--entry.usesLeft == 0) {
+            entries.remove(fingerprint);
+            KeyPair keys = entry.keys.copy();
+            entry.keys.wipe();
+            return keys;
+        }
+        return entry.keys.copy();
+    }
+
+    /**
+     * Caches a copy of the keys derived from the encrypted passphrase and PIN. The caller keeps ownership of the given keys.
+     */
+    synchronized void put(byte[] encryptedPassphrase, String pin, KeyPair keys) {
+        sweep();
+        String fingerprint = fingerprint(encryptedPassphrase);
+        Entry replaced = entries.put(fingerprint, new Entry(keys.copy(), pinHash(fingerprint, pin), System.currentTimeMillis() + ttlMillis, maxUses));
+        if (replaced != null) {
+            replaced.keys.wipe();
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.expiresAt <= now) {
+                entry.keys.wipe();
+                it.remove();
+            }
+        }
+    }
+
+    private static String fingerprint(byte[] encryptedPassphrase) {
+        return SigningUtils.toHex(sha256(encryptedPassphrase));
+    }
+
+    private byte[] pinHash(String fingerprint, String pin) {
+        try {
+            byte[] pinBytes = pin.getBytes("UTF-8");
+            byte[] fingerprintBytes = fingerprint.getBytes("UTF-8");
+            byte[] input = new byte[salt.length + fingerprintBytes.length + pinBytes.length];
+            System.arraycopy(salt, 0, input, 0, salt.length);
+            System.arraycopy(fingerprintBytes, 0, input, salt.length, fingerprintBytes.length);
+            System.arraycopy(pinBytes, 0, input, salt.length + fingerprintBytes.length, pinBytes.length);
+            byte[] hash = sha256(input);
+            Arrays.fill(pinBytes, (byte) 0);
+            Arrays.fill(input, (byte) 0);
+            return hash;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        SHA256Digest digest = new SHA256Digest();
+        byte[] hash = new byte[digest.getDigestSize()];
+        digest.update(data, 0, data.length);
+        digest.doFinal(hash, 0);
+        return hash;
+    }
+
+    /**
+     * A private key and its compressed public key
+     */
+    static class KeyPair {
+        final byte[] privKey;
+        final byte[] pubKey;
+
+        KeyPair(byte[] privKey, byte[] pubKey) {
+            this.privKey = privKey;
+            this.pubKey = pubKey;
+        }
+
+        KeyPair copy() {
+            return new KeyPair(privKey.clone(), pubKey.clone());
+        }
+
+        void wipe() {
+            Arrays.fill(privKey, (byte) 0);
+            Arrays.fill(pubKey, (byte) 0);
+        }
+    }
+
+    private static class Entry {
+        final KeyPair keys;
+        final byte[] pinHash;
+        final long expiresAt;
+        int usesLeft;
+
+        Entry(KeyPair keys, byte[] pinHash, long expiresAt, int usesLeft) {
+            this.keys = keys;
+            this.pinHash = pinHash;
+            this.expiresAt = expiresAt;
+            this.usesLeft = usesLeft;
+        }
+    }
+}
@@ -0,0 +1,1077 @@
+package io.block.api.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import io.block.api.model.*;
+import io.block.api.model.Error;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Gson type adapters for every class in {@link io.block.api.model}, including the {@link io.block.api.model.Response} wrappers. <br>
+ * The adapters dispatch on the JSON field names directly and produce the same results as Gson's reflective binding of the
+ * {@link com.google.gson.annotations.SerializedName} annotated fields: unknown fields are skipped, JSON nulls leave primitive
+ * fields at their default and null fields are left out when writing.
+ */
+public final class ModelTypeAdapters {
+
+    private static final Map<Class<?>, TypeAdapter<?>> ADAPTERS = new HashMap<Class<?>, TypeAdapter<?>>();
+
+    /**
+     * Resolves the adapters of this class, and nothing else
+     */
+    public static final TypeAdapterFactory FACTORY = new TypeAdapterFactory() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            return (TypeAdapter<T>) ADAPTERS.get(type.getRawType());
+        }
+    };
+
+    private ModelTypeAdapters() {
+    }
+
+    /**
+     * @return A new Gson instance with all model adapters registered. Gson instances are immutable and thread-safe, so share it.
+     */
+    public static Gson createGson() {
+        return new GsonBuilder().registerTypeAdapterFactory(FACTORY).create();
+    }
+
+    /**
+     * Amounts are read from the literal digits of JSON strings and numbers alike and written as strings, as the API does
+     */
+    private static final TypeAdapter<FixedAmount> FIXED_AMOUNT = register(FixedAmount.class, new TypeAdapter<FixedAmount>() {
+        @Override
+        public FixedAmount read(JsonReader in) throws IOException {
+            String text = readString(in);
+            if (text == null || text.isEmpty()) {
+                return null;
+            }
+            try {
+                return FixedAmount.parse(text);
+            } catch (NumberFormatException e) {
+                throw new JsonSyntaxException(e);
+            }
+        }
+
+        @Override
+        public void write(JsonWriter out, FixedAmount value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(value.toString());
+            }
+        }
+    });
+
+    private static final ObjectAdapter<Amount> AMOUNT = register(Amount.class, new ObjectAdapter<Amount>() {
+        @Override
+        Amount create() {
+            return new Amount();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Amount value) throws IOException {
+            switch (name) {
+                case "recipient": value.recipient = readString(in); break;
+                case "amount": value.amount = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Amount value) throws IOException {
+            out.name("recipient").value(value.recipient);
+            FIXED_AMOUNT.write(out.name("amount"), value.amount);
+        }
+    });
+
+    private static final ObjectAdapter<Address> ADDRESS = register(Address.class, new ObjectAdapter<Address>() {
+        @Override
+        Address create() {
+            return new Address();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Address value) throws IOException {
+            switch (name) {
+                case "user_id": value.userID = readInt(in, value.userID); break;
+                case "address": value.address = readString(in); break;
+                case "label": value.label = readString(in); break;
+                case "available_balance": value.availableBalance = FIXED_AMOUNT.read(in); break;
+                case "pending_received_balance": value.pedingReceivedBalance = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Address value) throws IOException {
+            out.name("user_id").value(value.userID);
+            out.name("address").value(value.address);
+            out.name("label").value(value.label);
+            FIXED_AMOUNT.write(out.name("available_balance"), value.availableBalance);
+            FIXED_AMOUNT.write(out.name("pending_received_balance"), value.pedingReceivedBalance);
+        }
+    });
+
+    private static final ObjectAdapter<Balance> BALANCE = register(Balance.class, new ObjectAdapter<Balance>() {
+        @Override
+        Balance create() {
+            return new Balance();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Balance value) throws IOException {
+            switch (name) {
+                case "user_id": value.userID = readInt(in, value.userID); break;
+                case "address": value.address = readString(in); break;
+                case "label": value.label = readString(in); break;
+                case "available_balance": value.availableBalance = FIXED_AMOUNT.read(in); break;
+                case "pending_received_balance": value.pedingReceivedBalance = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Balance value) throws IOException {
+            out.name("user_id").value(value.userID);
+            out.name("address").value(value.address);
+            out.name("label").value(value.label);
+            FIXED_AMOUNT.write(out.name("available_balance"), value.availableBalance);
+            FIXED_AMOUNT.write(out.name("pending_received_balance"), value.pedingReceivedBalance);
+        }
+    });
+
+    private static final ObjectAdapter<EncryptedPassphrase> ENCRYPTED_PASSPHRASE = register(EncryptedPassphrase.class, new ObjectAdapter<EncryptedPassphrase>() {
+        @Override
+        EncryptedPassphrase create() {
+            return new EncryptedPassphrase();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, EncryptedPassphrase value) throws IOException {
+            switch (name) {
+                case "signer_address": value.signerAddress = readString(in); break;
+                case "signer_public_key": value.signerPubKey = readString(in); break;
+                case "passphrase": value.passphrase = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, EncryptedPassphrase value) throws IOException {
+            out.name("signer_address").value(value.signerAddress);
+            out.name("signer_public_key").value(value.signerPubKey);
+            out.name("passphrase").value(value.passphrase);
+        }
+    });
+
+    private static final ObjectAdapter<GreenAddress> GREEN_ADDRESS = register(GreenAddress.class, new ObjectAdapter<GreenAddress>() {
+        @Override
+        GreenAddress create() {
+            return new GreenAddress();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, GreenAddress value) throws IOException {
+            switch (name) {
+                case "address": value.address = readString(in); break;
+                case "network": value.network = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, GreenAddress value) throws IOException {
+            out.name("address").value(value.address);
+            out.name("network").value(value.network);
+        }
+    });
+
+    private static final ObjectAdapter<GreenTransaction> GREEN_TRANSACTION = register(GreenTransaction.class, new ObjectAdapter<GreenTransaction>() {
+        @Override
+        GreenTransaction create() {
+            return new GreenTransaction();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, GreenTransaction value) throws IOException {
+            switch (name) {
+                case "txid": value.txid = readString(in); break;
+                case "network": value.network = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, GreenTransaction value) throws IOException {
+            out.name("txid").value(value.txid);
+            out.name("network").value(value.network);
+        }
+    });
+
+    private static final ObjectAdapter<Price> PRICE = register(Price.class, new ObjectAdapter<Price>() {
+        @Override
+        Price create() {
+            return new Price();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Price value) throws IOException {
+            switch (name) {
+                case "price": value.price = FIXED_AMOUNT.read(in); break;
+                case "price_base": value.priceBase = readString(in); break;
+                case "exchange": value.exchange = readString(in); break;
+                case "time": value.time = readLong(in, value.time); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Price value) throws IOException {
+            FIXED_AMOUNT.write(out.name("price"), value.price);
+            out.name("price_base").value(value.priceBase);
+            out.name("exchange").value(value.exchange);
+            out.name("time").value(value.time);
+        }
+    });
+
+    private static final ObjectAdapter<Signer> SIGNER = register(Signer.class, new ObjectAdapter<Signer>() {
+        @Override
+        Signer create() {
+            return new Signer();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Signer value) throws IOException {
+            switch (name) {
+                case "signer_address": value.signerAddress = readString(in); break;
+                case "signer_public_key": value.signerPubKey = readString(in); break;
+                case "signed_data": value.signedData = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Signer value) throws IOException {
+            out.name("signer_address").value(value.signerAddress);
+            out.name("signer_public_key").value(value.signerPubKey);
+            out.name("signed_data").value(value.signedData);
+        }
+    });
+
+    private static final ObjectAdapter<Input> INPUT = register(Input.class, new ObjectAdapter<Input>() {
+        @Override
+        Input create() {
+            return new Input();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Input value) throws IOException {
+            switch (name) {
+                case "input_no": value.inputNo = readInt(in, value.inputNo); break;
+                case "signatures_needed": value.sigsNeeded = readInt(in, value.sigsNeeded); break;
+                case "data_to_sign": value.dataToSign = readString(in); break;
+                case "signers": value.signers = readList(in, SIGNER); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Input value) throws IOException {
+            out.name("input_no").value(value.inputNo);
+            out.name("signatures_needed").value(value.sigsNeeded);
+            out.name("data_to_sign").value(value.dataToSign);
+            writeList(out.name("signers"), value.signers, SIGNER);
+        }
+    });
+
+    private static final ObjectAdapter<TransactionReceived> TRANSACTION_RECEIVED = register(TransactionReceived.class, new ObjectAdapter<TransactionReceived>() {
+        @Override
+        TransactionReceived create() {
+            return new TransactionReceived();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, TransactionReceived value) throws IOException {
+            switch (name) {
+                case "txid": value.txid = readString(in); break;
+                case "from_greem_address": value.fromGreenAddress = readBoolean(in, value.fromGreenAddress); break;
+                case "time": value.time = readLong(in, value.time); break;
+                case "confirmations": value.confirmations = readInt(in, value.confirmations); break;
+                case "amountsReceived": value.amountsReceived = readList(in, AMOUNT); break;
+                case "senders": value.senders = readList(in, STRING); break;
+                case "confidence": value.confidence = readDouble(in, value.confidence); break;
+                case "propagated_by_nodes": value.propagatedByNodes = readInt(in, value.propagatedByNodes); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransactionReceived value) throws IOException {
+            out.name("txid").value(value.txid);
+            out.name("from_greem_address").value(value.fromGreenAddress);
+            out.name("time").value(value.time);
+            out.name("confirmations").value(value.confirmations);
+            writeList(out.name("amountsReceived"), value.amountsReceived, AMOUNT);
+            writeList(out.name("senders"), value.senders, STRING);
+            out.name("confidence").value(value.confidence);
+            out.name("propagated_by_nodes").value(value.propagatedByNodes);
+        }
+    });
+
+    private static final ObjectAdapter<TransactionSent> TRANSACTION_SENT = register(TransactionSent.class, new ObjectAdapter<TransactionSent>() {
+        @Override
+        TransactionSent create() {
+            return new TransactionSent();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, TransactionSent value) throws IOException {
+            switch (name) {
+                case "txid": value.txid = readString(in); break;
+                case "from_greem_address": value.fromGreenAddress = readBoolean(in, value.fromGreenAddress); break;
+                case "time": value.time = readLong(in, value.time); break;
+                case "confirmations": value.confirmations = readInt(in, value.confirmations); break;
+                case "total_amount_sent": value.totalAmountSent = FIXED_AMOUNT.read(in); break;
+                case "amountsSent": value.amountsSent = readList(in, AMOUNT); break;
+                case "senders": value.senders = readList(in, STRING); break;
+                case "confidence": value.confidence = readDouble(in, value.confidence); break;
+                case "propagated_by_nodes": value.propagatedByNodes = readInt(in, value.propagatedByNodes); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransactionSent value) throws IOException {
+            out.name("txid").value(value.txid);
+            out.name("from_greem_address").value(value.fromGreenAddress);
+            out.name("time").value(value.time);
+            out.name("confirmations").value(value.confirmations);
+            FIXED_AMOUNT.write(out.name("total_amount_sent"), value.totalAmountSent);
+            writeList(out.name("amountsSent"), value.amountsSent, AMOUNT);
+            writeList(out.name("senders"), value.senders, STRING);
+            out.name("confidence").value(value.confidence);
+            out.name("propagated_by_nodes").value(value.propagatedByNodes);
+        }
+    });
+
+    private static final ObjectAdapter<AccountAddresses> ACCOUNT_ADDRESSES = register(AccountAddresses.class, new ObjectAdapter<AccountAddresses>() {
+        @Override
+        AccountAddresses create() {
+            return new AccountAddresses();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, AccountAddresses value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "addresses": value.addresses = readList(in, ADDRESS); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, AccountAddresses value) throws IOException {
+            out.name("network").value(value.network);
+            writeList(out.name("addresses"), value.addresses, ADDRESS);
+        }
+    });
+
+    private static final ObjectAdapter<AccountBalance> ACCOUNT_BALANCE = register(AccountBalance.class, new ObjectAdapter<AccountBalance>() {
+        @Override
+        AccountBalance create() {
+            return new AccountBalance();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, AccountBalance value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "available_balance": value.availableBalance = FIXED_AMOUNT.read(in); break;
+                case "pending_received_balance": value.pedingReceivedBalance = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, AccountBalance value) throws IOException {
+            out.name("network").value(value.network);
+            FIXED_AMOUNT.write(out.name("available_balance"), value.availableBalance);
+            FIXED_AMOUNT.write(out.name("pending_received_balance"), value.pedingReceivedBalance);
+        }
+    });
+
+    private static final ObjectAdapter<AddressBalances> ADDRESS_BALANCES = register(AddressBalances.class, new ObjectAdapter<AddressBalances>() {
+        @Override
+        AddressBalances create() {
+            return new AddressBalances();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, AddressBalances value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "available_balance": value.availableBalance = FIXED_AMOUNT.read(in); break;
+                case "pending_received_balance": value.pedingReceivedBalance = FIXED_AMOUNT.read(in); break;
+                case "balances": value.balances = readList(in, BALANCE); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, AddressBalances value) throws IOException {
+            out.name("network").value(value.network);
+            FIXED_AMOUNT.write(out.name("available_balance"), value.availableBalance);
+            FIXED_AMOUNT.write(out.name("pending_received_balance"), value.pedingReceivedBalance);
+            writeList(out.name("balances"), value.balances, BALANCE);
+        }
+    });
+
+    private static final ObjectAdapter<AddressByLabel> ADDRESS_BY_LABEL = register(AddressByLabel.class, new ObjectAdapter<AddressByLabel>() {
+        @Override
+        AddressByLabel create() {
+            return new AddressByLabel();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, AddressByLabel value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "user_id": value.userID = readInt(in, value.userID); break;
+                case "address": value.address = readString(in); break;
+                case "label": value.label = readString(in); break;
+                case "available_balance": value.availableBalance = FIXED_AMOUNT.read(in); break;
+                case "pending_received_balance": value.pedingReceivedBalance = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, AddressByLabel value) throws IOException {
+            out.name("network").value(value.network);
+            out.name("user_id").value(value.userID);
+            out.name("address").value(value.address);
+            out.name("label").value(value.label);
+            FIXED_AMOUNT.write(out.name("available_balance"), value.availableBalance);
+            FIXED_AMOUNT.write(out.name("pending_received_balance"), value.pedingReceivedBalance);
+        }
+    });
+
+    private static final ObjectAdapter<Error> ERROR = register(Error.class, new ObjectAdapter<Error>() {
+        @Override
+        Error create() {
+            return new Error();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Error value) throws IOException {
+            switch (name) {
+                case "error_message": value.message = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Error value) throws IOException {
+            out.name("error_message").value(value.message);
+        }
+    });
+
+    private static final ObjectAdapter<GreenAddresses> GREEN_ADDRESSES = register(GreenAddresses.class, new ObjectAdapter<GreenAddresses>() {
+        @Override
+        GreenAddresses create() {
+            return new GreenAddresses();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, GreenAddresses value) throws IOException {
+            switch (name) {
+                case "green_addresses": value.greenAddresses = readList(in, GREEN_ADDRESS); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, GreenAddresses value) throws IOException {
+            writeList(out.name("green_addresses"), value.greenAddresses, GREEN_ADDRESS);
+        }
+    });
+
+    private static final ObjectAdapter<GreenTransactions> GREEN_TRANSACTIONS = register(GreenTransactions.class, new ObjectAdapter<GreenTransactions>() {
+        @Override
+        GreenTransactions create() {
+            return new GreenTransactions();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, GreenTransactions value) throws IOException {
+            switch (name) {
+                case "green_txs": value.greenTransactions = readList(in, GREEN_TRANSACTION); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, GreenTransactions value) throws IOException {
+            writeList(out.name("green_txs"), value.greenTransactions, GREEN_TRANSACTION);
+        }
+    });
+
+    private static final ObjectAdapter<NewAddress> NEW_ADDRESS = register(NewAddress.class, new ObjectAdapter<NewAddress>() {
+        @Override
+        NewAddress create() {
+            return new NewAddress();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, NewAddress value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "user_id": value.userId = readInt(in, value.userId); break;
+                case "address": value.address = readString(in); break;
+                case "label": value.label = readString(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, NewAddress value) throws IOException {
+            out.name("network").value(value.network);
+            out.name("user_id").value(value.userId);
+            out.name("address").value(value.address);
+            out.name("label").value(value.label);
+        }
+    });
+
+    private static final ObjectAdapter<Prices> PRICES = register(Prices.class, new ObjectAdapter<Prices>() {
+        @Override
+        Prices create() {
+            return new Prices();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Prices value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "prices": value.prices = readList(in, PRICE); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Prices value) throws IOException {
+            out.name("network").value(value.network);
+            writeList(out.name("prices"), value.prices, PRICE);
+        }
+    });
+
+    private static final ObjectAdapter<TransactionsReceived> TRANSACTIONS_RECEIVED = register(TransactionsReceived.class, new ObjectAdapter<TransactionsReceived>() {
+        @Override
+        TransactionsReceived create() {
+            return new TransactionsReceived();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, TransactionsReceived value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "txs": value.txs = readList(in, TRANSACTION_RECEIVED); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransactionsReceived value) throws IOException {
+            out.name("network").value(value.network);
+            writeList(out.name("txs"), value.txs, TRANSACTION_RECEIVED);
+        }
+    });
+
+    private static final ObjectAdapter<TransactionsSent> TRANSACTIONS_SENT = register(TransactionsSent.class, new ObjectAdapter<TransactionsSent>() {
+        @Override
+        TransactionsSent create() {
+            return new TransactionsSent();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, TransactionsSent value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "txs": value.txs = readList(in, TRANSACTION_SENT); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, TransactionsSent value) throws IOException {
+            out.name("network").value(value.network);
+            writeList(out.name("txs"), value.txs, TRANSACTION_SENT);
+        }
+    });
+
+    private static final ObjectAdapter<WithdrawSignRequest> WITHDRAW_SIGN_REQUEST = register(WithdrawSignRequest.class, new ObjectAdapter<WithdrawSignRequest>() {
+        @Override
+        WithdrawSignRequest create() {
+            return new WithdrawSignRequest();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, WithdrawSignRequest value) throws IOException {
+            switch (name) {
+                case "reference_id": value.referenceID = readString(in); break;
+                case "more_signatures_needed": value.moreSigsNeeded = readBoolean(in, value.moreSigsNeeded); break;
+                case "inputs": value.inputs = readList(in, INPUT); break;
+                case "encrypted_passphrase": value.encryptedPassphrase = ENCRYPTED_PASSPHRASE.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, WithdrawSignRequest value) throws IOException {
+            out.name("reference_id").value(value.referenceID);
+            out.name("more_signatures_needed").value(value.moreSigsNeeded);
+            writeList(out.name("inputs"), value.inputs, INPUT);
+            ENCRYPTED_PASSPHRASE.write(out.name("encrypted_passphrase"), value.encryptedPassphrase);
+        }
+    });
+
+    private static final ObjectAdapter<Withdrawal> WITHDRAWAL = register(Withdrawal.class, new ObjectAdapter<Withdrawal>() {
+        @Override
+        Withdrawal create() {
+            return new Withdrawal();
+        }
+
+        @Override
+        void readField(JsonReader in, String name, Withdrawal value) throws IOException {
+            switch (name) {
+                case "network": value.network = readString(in); break;
+                case "txid": value.txid = readString(in); break;
+                case "amount_withdrawn": value.amountWithdrawn = FIXED_AMOUNT.read(in); break;
+                case "amount_sent": value.amountSent = FIXED_AMOUNT.read(in); break;
+                case "network_fee": value.networkFee = FIXED_AMOUNT.read(in); break;
+                case "blockio_fee": value.blockIOFee = FIXED_AMOUNT.read(in); break;
+                default: in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, Withdrawal value) throws IOException {
+            out.name("network").value(value.network);
+            out.name("txid").value(value.txid);
+            FIXED_AMOUNT.write(out.name("amount_withdrawn"), value.amountWithdrawn);
+            FIXED_AMOUNT.write(out.name("amount_sent"), value.amountSent);
+            FIXED_AMOUNT.write(out.name("network_fee"), value.networkFee);
+            FIXED_AMOUNT.write(out.name("blockio_fee"), value.blockIOFee);
+        }
+    });
+
+    static {
+        register(Response.class, new ResponseAdapter<Response, Void>(null) {
+            @Override
+            Response create() {
+                return new Response();
+            }
+
+            @Override
+            Void getData(Response response) {
+                return null;
+            }
+
+            @Override
+            void setData(Response response, Void data) {
+            }
+        });
+        register(Response.ResponseAccountBalance.class, new ResponseAdapter<Response.ResponseAccountBalance, AccountBalance>(ACCOUNT_BALANCE) {
+            @Override
+            Response.ResponseAccountBalance create() {
+                return new Response.ResponseAccountBalance();
+            }
+
+            @Override
+            AccountBalance getData(Response.ResponseAccountBalance response) {
+                return response.accountBalance;
+            }
+
+            @Override
+            void setData(Response.ResponseAccountBalance response, AccountBalance data) {
+                response.accountBalance = data;
+            }
+        });
+        register(Response.ResponseNewAddress.class, new ResponseAdapter<Response.ResponseNewAddress, NewAddress>(NEW_ADDRESS) {
+            @Override
+            Response.ResponseNewAddress create() {
+                return new Response.ResponseNewAddress();
+            }
+
+            @Override
+            NewAddress getData(Response.ResponseNewAddress response) {
+                return response.newAddress;
+            }
+
+            @Override
+            void setData(Response.ResponseNewAddress response, NewAddress data) {
+                response.newAddress = data;
+            }
+        });
+        register(Response.ResponseAccountAddresses.class, new ResponseAdapter<Response.ResponseAccountAddresses, AccountAddresses>(ACCOUNT_ADDRESSES) {
+            @Override
+            Response.ResponseAccountAddresses create() {
+                return new Response.ResponseAccountAddresses();
+            }
+
+            @Override
+            AccountAddresses getData(Response.ResponseAccountAddresses response) {
+                return response.accountAddresses;
+            }
+
+            @Override
+            void setData(Response.ResponseAccountAddresses response, AccountAddresses data) {
+                response.accountAddresses = data;
+            }
+        });
+        register(Response.ResponseAddressBalances.class, new ResponseAdapter<Response.ResponseAddressBalances, AddressBalances>(ADDRESS_BALANCES) {
+            @Override
+            Response.ResponseAddressBalances create() {
+                return new Response.ResponseAddressBalances();
+            }
+
+            @Override
+            AddressBalances getData(Response.ResponseAddressBalances response) {
+                return response.addressBalances;
+            }
+
+            @Override
+            void setData(Response.ResponseAddressBalances response, AddressBalances data) {
+                response.addressBalances = data;
+            }
+        });
+        register(Response.ResponseAddressByLabel.class, new ResponseAdapter<Response.ResponseAddressByLabel, AddressByLabel>(ADDRESS_BY_LABEL) {
+            @Override
+            Response.ResponseAddressByLabel create() {
+                return new Response.ResponseAddressByLabel();
+            }
+
+            @Override
+            AddressByLabel getData(Response.ResponseAddressByLabel response) {
+                return response.addressByLabel;
+            }
+
+            @Override
+            void setData(Response.ResponseAddressByLabel response, AddressByLabel data) {
+                response.addressByLabel = data;
+            }
+        });
+        register(Response.ResponseWithdrawal.class, new ResponseAdapter<Response.ResponseWithdrawal, Withdrawal>(WITHDRAWAL) {
+            @Override
+            Response.ResponseWithdrawal create() {
+                return new Response.ResponseWithdrawal();
+            }
+
+            @Override
+            Withdrawal getData(Response.ResponseWithdrawal response) {
+                return response.withdrawal;
+            }
+
+            @Override
+            void setData(Response.ResponseWithdrawal response, Withdrawal data) {
+                response.withdrawal = data;
+            }
+        });
+        register(Response.ResponseWithdrawSignRequest.class, new ResponseAdapter<Response.ResponseWithdrawSignRequest, WithdrawSignRequest>(WITHDRAW_SIGN_REQUEST) {
+            @Override
+            Response.ResponseWithdrawSignRequest create() {
+                return new Response.ResponseWithdrawSignRequest();
+            }
+
+            @Override
+            WithdrawSignRequest getData(Response.ResponseWithdrawSignRequest response) {
+                return response.withdrawSignRequest;
+            }
+
+            @Override
+            void setData(Response.ResponseWithdrawSignRequest response, WithdrawSignRequest data) {
+                response.withdrawSignRequest = data;
+            }
+        });
+        register(Response.ResponsePrices.class, new ResponseAdapter<Response.ResponsePrices, Prices>(PRICES) {
+            @Override
+            Response.ResponsePrices create() {
+                return new Response.ResponsePrices();
+            }
+
+            @Override
+            Prices getData(Response.ResponsePrices response) {
+                return response.prices;
+            }
+
+            @Override
+            void setData(Response.ResponsePrices response, Prices data) {
+                response.prices = data;
+            }
+        });
+        register(Response.ResponseGreenAddresses.class, new ResponseAdapter<Response.ResponseGreenAddresses, GreenAddresses>(GREEN_ADDRESSES) {
+            @Override
+            Response.ResponseGreenAddresses create() {
+                return new Response.ResponseGreenAddresses();
+            }
+
+            @Override
+            GreenAddresses getData(Response.ResponseGreenAddresses response) {
+                return response.greenAddresses;
+            }
+
+            @Override
+            void setData(Response.ResponseGreenAddresses response, GreenAddresses data) {
+                response.greenAddresses = data;
+            }
+        });
+        register(Response.ResponseGreenTransactions.class, new ResponseAdapter<Response.ResponseGreenTransactions, GreenTransactions>(GREEN_TRANSACTIONS) {
+            @Override
+            Response.ResponseGreenTransactions create() {
+                return new Response.ResponseGreenTransactions();
+            }
+
+            @Override
+            GreenTransactions getData(Response.ResponseGreenTransactions response) {
+                return response.greenTransactions;
+            }
+
+            @Override
+            void setData(Response.ResponseGreenTransactions response, GreenTransactions data) {
+                response.greenTransactions = data;
+            }
+        });
+        register(Response.ResponseTransactionsReceived.class, new ResponseAdapter<Response.ResponseTransactionsReceived, TransactionsReceived>(TRANSACTIONS_RECEIVED) {
+            @Override
+            Response.ResponseTransactionsReceived create() {
+                return new Response.ResponseTransactionsReceived();
+            }
+
+            @Override
+            TransactionsReceived getData(Response.ResponseTransactionsReceived response) {
+                return response.transactionsReceived;
+            }
+
+            @Override
+            void setData(Response.ResponseTransactionsReceived response, TransactionsReceived data) {
+                response.transactionsReceived = data;
+            }
+        });
+        register(Response.ResponseTransactionsSent.class, new ResponseAdapter<Response.ResponseTransactionsSent, TransactionsSent>(TRANSACTIONS_SENT) {
+            @Override
+            Response.ResponseTransactionsSent create() {
+                return new Response.ResponseTransactionsSent();
+            }
+
+            @Override
+            TransactionsSent getData(Response.ResponseTransactionsSent response) {
+                return response.transactionsSent;
+            }
+
+            @Override
+            void setData(Response.ResponseTransactionsSent response, TransactionsSent data) {
+                response.transactionsSent = data;
+            }
+        });
+        register(Response.ResponseError.class, new ResponseAdapter<Response.ResponseError, Error>(ERROR) {
+            @Override
+            Response.ResponseError create() {
+                return new Response.ResponseError();
+            }
+
+            @Override
+            Error getData(Response.ResponseError response) {
+                return response.error;
+            }
+
+            @Override
+            void setData(Response.ResponseError response, Error data) {
+                response.error = data;
+            }
+        });
+    }
+
+    private static <T, A extends TypeAdapter<T>> A register(Class<T> type, A adapter) {
+        ADAPTERS.put(type, adapter);
+        return adapter;
+    }
+
+    /**
+     * Reads a JSON object field by field into a new instance of the model class
+     */
+    private abstract static class ObjectAdapter<T> extends TypeAdapter<T> {
+
+        abstract T create();
+
+        abstract void readField(JsonReader in, String name, T value) throws IOException;
+
+        abstract void writeFields(JsonWriter out, T value) throws IOException;
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            T value = create();
+            in.beginObject();
+            while (in.hasNext()) {
+                readField(in, in.nextName(), value);
+            }
+            in.endObject();
+            return value;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeFields(out, value);
+            out.endObject();
+        }
+    }
+
+    /**
+     * Binds the "data" object of an API response to the field of the respective {@link io.block.api.model.Response} subclass
+     */
+    private abstract static class ResponseAdapter<R extends Response, D> extends ObjectAdapter<R> {
+        private final TypeAdapter<D> dataAdapter;
+
+        ResponseAdapter(TypeAdapter<D> dataAdapter) {
+            this.dataAdapter = dataAdapter;
+        }
+
+        abstract D getData(R response);
+
+        abstract void setData(R response, D data);
+
+        @Override
+        void readField(JsonReader in, String name, R value) throws IOException {
+            if ("status".equals(name)) {
+                value.status = readString(in);
+            } else if ("data".equals(name) && dataAdapter != null) {
+                setData(value, dataAdapter.read(in));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(JsonWriter out, R value) throws IOException {
+            if (dataAdapter != null) {
+                dataAdapter.write(out.name("data"), getData(value));
+            }
+            out.name("status").value(value.status);
+        }
+    }
+
+    private static final TypeAdapter<String> STRING = new TypeAdapter<String>() {
+        @Override
+        public String read(JsonReader in) throws IOException {
+            return readString(in);
+        }
+
+        @Override
+        public void write(JsonWriter out, String value) throws IOException {
+            out.value(value);
+        }
+    };
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<T> list = new ArrayList<T>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> list, TypeAdapter<T> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case BOOLEAN:
+                return Boolean.toString(in.nextBoolean());
+            default:
+                return in.nextString();
+        }
+    }
+
+    private static int readInt(JsonReader in, int current) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static long readLong(JsonReader in, long current) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static double readDouble(JsonReader in, double current) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return current;
+        }
+        return in.nextDouble();
+    }
+
+    private static boolean readBoolean(JsonReader in, boolean current) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return current;
+            case STRING:
+                return Boolean.parseBoolean(in.nextString());
+            default:
+                return in.nextBoolean();
+        }
+    }
+}
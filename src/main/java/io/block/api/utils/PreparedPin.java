@@ -0,0 +1,90 @@
+package io.block.api.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A secret PIN and the AES key derived from it, which does not depend on the withdrawal request. <br>
+ * {@link #start(String, Executor)} runs the PBKDF2 derivation in the background while the sign request is on the wire.
+ * If the key is needed before the background task got to run, it is derived on the calling thread instead, so a busy
+ * executor never delays signing. Used for one withdrawal and then wiped.
+ */
+public final class PreparedPin {
+
+    private final String secretPin;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<byte[]> key = new CompletableFuture<byte[]>();
+
+    private PreparedPin(String secretPin) {
+        this.secretPin = secretPin;
+    }
+
+    /**
+     * @param secretPin The secret PIN
+     * @return A PIN whose key is derived when signing needs it
+     */
+    public static PreparedPin of(String secretPin) {
+        return new PreparedPin(secretPin);
+    }
+
+    /**
+     * @param secretPin The secret PIN
+     * @param executor Runs the key derivation
+     * @return A PIN whose key is being derived on the executor
+     */
+    public static PreparedPin start(String secretPin, Executor executor) {
+        final PreparedPin pin = new PreparedPin(secretPin);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    pin.derive();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Derived on first use
+        }
+        return pin;
+    }
+
+    String secretPin() {
+        return secretPin;
+    }
+
+    /**
+     * @return The AES key, owned by this PIN and wiped by {@link #wipe()}
+     */
+    byte[] key() {
+        derive();
+        try {
+            return key.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Overwrites the key with zeros, right away or once a running derivation finishes. A derivation that has not
+     * started yet will not run at all.
+     */
+    public void wipe() {
+        if (claimed.compareAndSet(false, true)) {
+            key.complete(new byte[0]);
+        }
+        key.thenAccept(k -> Arrays.fill(k, (byte) 0));
+    }
+
+    private void derive() {
+        if (claimed.compareAndSet(false, true)) {
+            try {
+                key.complete(SigningUtils.pinToKey(secretPin));
+            } catch (RuntimeException e) {
+                key.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.block.api.utils;
+
+import org.bouncycastle.asn1.x9.X9ECParameters;
+import org.bouncycastle.crypto.ec.CustomNamedCurves;
+import org.bouncycastle.crypto.params.ECDomainParameters;
+import org.bouncycastle.math.ec.ECMultiplier;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointUtil;
+
+import java.math.BigInteger;
+
+/**
+ * The secp256k1 curve as BouncyCastle sees it, set up once and shared by {@link BouncyCastleSigningEngine}. <br>
+ * Uses BouncyCastle's specialized curve implementation with the GLV endomorphism, and precomputes the comb table of the
+ * generator point up front. {@link org.bouncycastle.crypto.signers.ECDSASigner} multiplies the generator with a
+ * {@link org.bouncycastle.math.ec.FixedPointCombMultiplier} as well, so signing and public key derivation both reuse the
+ * table. Initialized on first use, immutable afterwards and safe to use from any thread.
+ */
+final class Secp256k1 {
+
+    static final ECDomainParameters DOMAIN;
+
+    private static final ECMultiplier BASE_MULTIPLIER = new FixedPointCombMultiplier();
+
+    static {
+        X9ECParameters params = CustomNamedCurves.getByName("secp256k1");
+        DOMAIN = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
+        // Width 5 is what FixedPointCombMultiplier asks for on a 256 bit curve, so it finds the table ready
+        FixedPointUtil.precompute(DOMAIN.getG(), 5);
+    }
+
+    private Secp256k1() {
+    }
+
+    /**
+     * @param k A scalar in [1, n-1]
+     * @return k * G
+     */
+    static ECPoint multiplyGenerator(BigInteger k) {
+        return BASE_MULTIPLIER.multiply(DOMAIN.getG(), k);
+    }
+}
@@ -0,0 +1,358 @@
+package io.block.api.utils;
+
+/**
+ * Arithmetic modulo the secp256k1 field prime p = 2^256 - 2^32 - 977. <br>
+ * An element is an {@code int[10]} holding ten 26 bit limbs, least significant first. All operations take their inputs
+ * and leave their result weakly reduced: limbs below 2^26, the value below 2^257 but not necessarily below p. Only
+ * {@link #normalize(int[])} reduces fully, which is needed before comparing or encoding. The result may be one of the
+ * inputs. Products are accumulated in 64 bit longs and never allocate. No operation branches on the value or indexes
+ * memory with it, so the time taken does not depend on secret inputs.
+ */
+final class Secp256k1Field {
+
+    static final int LIMBS = 10;
+
+    private static final long M = 0x3FFFFFF;
+
+    /**
+     * 16 * p limb by limb, every limb above the largest weakly reduced one, so {@code a + 16p - b} has no negative limbs
+     */
+    private static final long[] P16 = {
+            0x3FFFC2FL << 4, 0x3FFFFBFL << 4, M << 4, M << 4, M << 4, M << 4, M << 4, M << 4, M << 4, 0x3FFFFFL << 4
+    };
+
+    private Secp256k1Field() {
+    }
+
+    static int[] create() {
+        return new int[LIMBS];
+    }
+
+    static int[] fromInt(int value) {
+        int[] r = create();
+        r[0] = value;
+        return r;
+    }
+
+    /**
+     * @param bytes 32 bytes, big endian
+     */
+    static int[] fromBytes(byte[] bytes) {
+        int[] r = create();
+        long acc = 0;
+        int bits = 0;
+        int limb = 0;
+        for (int i = 31; i >= 0; i--) {
+            acc |= (long) (bytes[i] & 0xff) << bits;
+            bits += 8;
+            if (bits >= 26 && limb < LIMBS - 1) {
+                r[limb++] = (int) (acc & M);
+                acc >>>= 26;
+                bits -= 26;
+            }
+        }
+        r[limb] = (int) acc;
+        return r;
+    }
+
+    /**
+     * Writes the fully reduced value as 32 bytes, big endian
+     */
+    static void toBytes(int[] a, byte[] out, int offset) {
+        int[] n = a.clone();
+        normalize(n);
+        for (int i = 0; i < 32; i++) {
+            int bit = i * 8;
+            int limb = bit / 26;
+            int shift = bit % 26;
+            int value = n[limb] >>> shift;
+            if (shift > 18 && limb < LIMBS - 1) {
+                value |= n[limb + 1] << (26 - shift);
+            }
+            out[offset + 31 - i] = (byte) value;
+        }
+    }
+
+    static void set(int[] r, int[] a) {
+        System.arraycopy(a, 0, r, 0, LIMBS);
+    }
+
+    /**
+     * r = a if mask is 0, b if mask is -1, without branching on the mask
+     */
+    static void select(int[] r, int[] a, int[] b, int mask) {
+        for (int i = 0; i < LIMBS; i++) {
+            r[i] = a[i] ^ ((a[i] ^ b[i]) & mask);
+        }
+    }
+
+    /**
+     * Reduces the value to [0, p)
+     */
+    static void normalize(int[] a) {
+        long c0 = a[0], c1 = a[1], c2 = a[2], c3 = a[3], c4 = a[4], c5 = a[5], c6 = a[6], c7 = a[7], c8 = a[8], c9 = a[9];
+        // Below 2^257, so folding bit 256 twice leaves less than 2^256
+        for (int round = 0; round < 2; round++) {
+            long t = c9 >>> 22;
+            c9 &= 0x3FFFFF;
+            c0 += t * 0x3D1;
+            c1 += t << 6;
+            c1 += c0 >>> 26; c0 &= M;
+            c2 += c1 >>> 26; c1 &= M;
+            c3 += c2 >>> 26; c2 &= M;
+            c4 += c3 >>> 26; c3 &= M;
+            c5 += c4 >>> 26; c4 &= M;
+            c6 += c5 >>> 26; c5 &= M;
+            c7 += c6 >>> 26; c6 &= M;
+            c8 += c7 >>> 26; c7 &= M;
+            c9 += c8 >>> 26; c8 &= M;
+        }
+        // v >= p exactly when v + (2^256 - p) reaches 2^256, then that sum minus 2^256 is v - p. Selected with a mask,
+        // not a branch, so the time does not depend on the value.
+        long d0 = c0 + 0x3D1;
+        long d1 = c1 + 0x40 + (d0 >>> 26); d0 &= M;
+        long d2 = c2 + (d1 >>> 26); d1 &= M;
+        long d3 = c3 + (d2 >>> 26); d2 &= M;
+        long d4 = c4 + (d3 >>> 26); d3 &= M;
+        long d5 = c5 + (d4 >>> 26); d4 &= M;
+        long d6 = c6 + (d5 >>> 26); d5 &= M;
+        long d7 = c7 + (d6 >>> 26); d6 &= M;
+        long d8 = c8 + (d7 >>> 26); d7 &= M;
+        long d9 = c9 + (d8 >>> 26); d8 &= M;
+        long atLeastP = -(d9 >>> 22);
+        d9 &= 0x3FFFFF;
+        c0 ^= (c0 ^ d0) & atLeastP; c1 ^= (c1 ^ d1) & atLeastP; c2 ^= (c2 ^ d2) & atLeastP;
+        c3 ^= (c3 ^ d3) & atLeastP; c4 ^= (c4 ^ d4) & atLeastP; c5 ^= (c5 ^ d5) & atLeastP;
+        c6 ^= (c6 ^ d6) & atLeastP; c7 ^= (c7 ^ d7) & atLeastP; c8 ^= (c8 ^ d8) & atLeastP;
+        c9 ^= (c9 ^ d9) & atLeastP;
+        a[0] = (int) c0; a[1] = (int) c1; a[2] = (int) c2; a[3] = (int) c3; a[4] = (int) c4;
+        a[5] = (int) c5; a[6] = (int) c6; a[7] = (int) c7; a[8] = (int) c8; a[9] = (int) c9;
+    }
+
+    /**
+     * @param a A fully reduced value
+     */
+    static boolean isOdd(int[] a) {
+        return (a[0] & 1) != 0;
+    }
+
+    static void add(int[] r, int[] a, int[] b) {
+        reduce(r, (long) a[0] + b[0], (long) a[1] + b[1], (long) a[2] + b[2], (long) a[3] + b[3], (long) a[4] + b[4],
+                (long) a[5] + b[5], (long) a[6] + b[6], (long) a[7] + b[7], (long) a[8] + b[8], (long) a[9] + b[9]);
+    }
+
+    static void sub(int[] r, int[] a, int[] b) {
+        reduce(r, a[0] + P16[0] - b[0], a[1] + P16[1] - b[1], a[2] + P16[2] - b[2], a[3] + P16[3] - b[3], a[4] + P16[4] - b[4],
+                a[5] + P16[5] - b[5], a[6] + P16[6] - b[6], a[7] + P16[7] - b[7], a[8] + P16[8] - b[8], a[9] + P16[9] - b[9]);
+    }
+
+    static void negate(int[] r, int[] a) {
+        reduce(r, P16[0] - a[0], P16[1] - a[1], P16[2] - a[2], P16[3] - a[3], P16[4] - a[4],
+                P16[5] - a[5], P16[6] - a[6], P16[7] - a[7], P16[8] - a[8], P16[9] - a[9]);
+    }
+
+    /**
+     * @param k A small factor, at most 2^20
+     */
+    static void mulInt(int[] r, int[] a, int k) {
+        reduce(r, (long) a[0] * k, (long) a[1] * k, (long) a[2] * k, (long) a[3] * k, (long) a[4] * k,
+                (long) a[5] * k, (long) a[6] * k, (long) a[7] * k, (long) a[8] * k, (long) a[9] * k);
+    }
+
+    static void mul(int[] r, int[] a, int[] b) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4];
+        long a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+        long b0 = b[0], b1 = b[1], b2 = b[2], b3 = b[3], b4 = b[4];
+        long b5 = b[5], b6 = b[6], b7 = b[7], b8 = b[8], b9 = b[9];
+        long c0 = a0 * b0;
+        long c1 = a0 * b1 + a1 * b0;
+        long c2 = a0 * b2 + a1 * b1 + a2 * b0;
+        long c3 = a0 * b3 + a1 * b2 + a2 * b1 + a3 * b0;
+        long c4 = a0 * b4 + a1 * b3 + a2 * b2 + a3 * b1 + a4 * b0;
+        long c5 = a0 * b5 + a1 * b4 + a2 * b3 + a3 * b2 + a4 * b1 + a5 * b0;
+        long c6 = a0 * b6 + a1 * b5 + a2 * b4 + a3 * b3 + a4 * b2 + a5 * b1 + a6 * b0;
+        long c7 = a0 * b7 + a1 * b6 + a2 * b5 + a3 * b4 + a4 * b3 + a5 * b2 + a6 * b1 + a7 * b0;
+        long c8 = a0 * b8 + a1 * b7 + a2 * b6 + a3 * b5 + a4 * b4 + a5 * b3 + a6 * b2 + a7 * b1 + a8 * b0;
+        long c9 = a0 * b9 + a1 * b8 + a2 * b7 + a3 * b6 + a4 * b5 + a5 * b4 + a6 * b3 + a7 * b2 + a8 * b1 + a9 * b0;
+        long c10 = a1 * b9 + a2 * b8 + a3 * b7 + a4 * b6 + a5 * b5 + a6 * b4 + a7 * b3 + a8 * b2 + a9 * b1;
+        long c11 = a2 * b9 + a3 * b8 + a4 * b7 + a5 * b6 + a6 * b5 + a7 * b4 + a8 * b3 + a9 * b2;
+        long c12 = a3 * b9 + a4 * b8 + a5 * b7 + a6 * b6 + a7 * b5 + a8 * b4 + a9 * b3;
+        long c13 = a4 * b9 + a5 * b8 + a6 * b7 + a7 * b6 + a8 * b5 + a9 * b4;
+        long c14 = a5 * b9 + a6 * b8 + a7 * b7 + a8 * b6 + a9 * b5;
+        long c15 = a6 * b9 + a7 * b8 + a8 * b7 + a9 * b6;
+        long c16 = a7 * b9 + a8 * b8 + a9 * b7;
+        long c17 = a8 * b9 + a9 * b8;
+        long c18 = a9 * b9;
+
+        // Carry into 26 bit limbs, the product is below 2^514 and fits in c0..c19
+        c1 += c0 >>> 26; c0 &= M;
+        c2 += c1 >>> 26; c1 &= M;
+        c3 += c2 >>> 26; c2 &= M;
+        c4 += c3 >>> 26; c3 &= M;
+        c5 += c4 >>> 26; c4 &= M;
+        c6 += c5 >>> 26; c5 &= M;
+        c7 += c6 >>> 26; c6 &= M;
+        c8 += c7 >>> 26; c7 &= M;
+        c9 += c8 >>> 26; c8 &= M;
+        c10 += c9 >>> 26; c9 &= M;
+        c11 += c10 >>> 26; c10 &= M;
+        c12 += c11 >>> 26; c11 &= M;
+        c13 += c12 >>> 26; c12 &= M;
+        c14 += c13 >>> 26; c13 &= M;
+        c15 += c14 >>> 26; c14 &= M;
+        c16 += c15 >>> 26; c15 &= M;
+        c17 += c16 >>> 26; c16 &= M;
+        c18 += c17 >>> 26; c17 &= M;
+        long c19 = c18 >>> 26; c18 &= M;
+
+        // 2^260 = 0x3D10 + 0x400 * 2^26 (mod p), fold the upper limbs into the lower ones from the top
+        c9 += c19 * 0x3D10; c10 += c19 << 10;
+        c8 += c18 * 0x3D10; c9 += c18 << 10;
+        c7 += c17 * 0x3D10; c8 += c17 << 10;
+        c6 += c16 * 0x3D10; c7 += c16 << 10;
+        c5 += c15 * 0x3D10; c6 += c15 << 10;
+        c4 += c14 * 0x3D10; c5 += c14 << 10;
+        c3 += c13 * 0x3D10; c4 += c13 << 10;
+        c2 += c12 * 0x3D10; c3 += c12 << 10;
+        c1 += c11 * 0x3D10; c2 += c11 << 10;
+        c0 += c10 * 0x3D10; c1 += c10 << 10;
+        reduce(r, c0, c1, c2, c3, c4, c5, c6, c7, c8, c9);
+    }
+
+    static void sqr(int[] r, int[] a) {
+        long a0 = a[0], a1 = a[1], a2 = a[2], a3 = a[3], a4 = a[4];
+        long a5 = a[5], a6 = a[6], a7 = a[7], a8 = a[8], a9 = a[9];
+        long c0 = a0 * a0;
+        long c1 = (a0 * a1) << 1;
+        long c2 = ((a0 * a2) << 1) + a1 * a1;
+        long c3 = (a0 * a3 + a1 * a2) << 1;
+        long c4 = ((a0 * a4 + a1 * a3) << 1) + a2 * a2;
+        long c5 = (a0 * a5 + a1 * a4 + a2 * a3) << 1;
+        long c6 = ((a0 * a6 + a1 * a5 + a2 * a4) << 1) + a3 * a3;
+        long c7 = (a0 * a7 + a1 * a6 + a2 * a5 + a3 * a4) << 1;
+        long c8 = ((a0 * a8 + a1 * a7 + a2 * a6 + a3 * a5) << 1) + a4 * a4;
+        long c9 = (a0 * a9 + a1 * a8 + a2 * a7 + a3 * a6 + a4 * a5) << 1;
+        long c10 = ((a1 * a9 + a2 * a8 + a3 * a7 + a4 * a6) << 1) + a5 * a5;
+        long c11 = (a2 * a9 + a3 * a8 + a4 * a7 + a5 * a6) << 1;
+        long c12 = ((a3 * a9 + a4 * a8 + a5 * a7) << 1) + a6 * a6;
+        long c13 = (a4 * a9 + a5 * a8 + a6 * a7) << 1;
+        long c14 = ((a5 * a9 + a6 * a8) << 1) + a7 * a7;
+        long c15 = (a6 * a9 + a7 * a8) << 1;
+        long c16 = ((a7 * a9) << 1) + a8 * a8;
+        long c17 = (a8 * a9) << 1;
+        long c18 = a9 * a9;
+
+        // Carry into 26 bit limbs, the product is below 2^514 and fits in c0..c19
+        c1 += c0 >>> 26; c0 &= M;
+        c2 += c1 >>> 26; c1 &= M;
+        c3 += c2 >>> 26; c2 &= M;
+        c4 += c3 >>> 26; c3 &= M;
+        c5 += c4 >>> 26; c4 &= M;
+        c6 += c5 >>> 26; c5 &= M;
+        c7 += c6 >>> 26; c6 &= M;
+        c8 += c7 >>> 26; c7 &= M;
+        c9 += c8 >>> 26; c8 &= M;
+        c10 += c9 >>> 26; c9 &= M;
+        c11 += c10 >>> 26; c10 &= M;
+        c12 += c11 >>> 26; c11 &= M;
+        c13 += c12 >>> 26; c12 &= M;
+        c14 += c13 >>> 26; c13 &= M;
+        c15 += c14 >>> 26; c14 &= M;
+        c16 += c15 >>> 26; c15 &= M;
+        c17 += c16 >>> 26; c16 &= M;
+        c18 += c17 >>> 26; c17 &= M;
+        long c19 = c18 >>> 26; c18 &= M;
+
+        // 2^260 = 0x3D10 + 0x400 * 2^26 (mod p), fold the upper limbs into the lower ones from the top
+        c9 += c19 * 0x3D10; c10 += c19 << 10;
+        c8 += c18 * 0x3D10; c9 += c18 << 10;
+        c7 += c17 * 0x3D10; c8 += c17 << 10;
+        c6 += c16 * 0x3D10; c7 += c16 << 10;
+        c5 += c15 * 0x3D10; c6 += c15 << 10;
+        c4 += c14 * 0x3D10; c5 += c14 << 10;
+        c3 += c13 * 0x3D10; c4 += c13 << 10;
+        c2 += c12 * 0x3D10; c3 += c12 << 10;
+        c1 += c11 * 0x3D10; c2 += c11 << 10;
+        c0 += c10 * 0x3D10; c1 += c10 << 10;
+        reduce(r, c0, c1, c2, c3, c4, c5, c6, c7, c8, c9);
+    }
+
+    /**
+     * r = a^(p-2) = 1/a for a not zero, with the addition chain of libsecp256k1: 255 squarings and 15 multiplications
+     */
+    static void invert(int[] r, int[] a) {
+        int[] x2 = create(), x3 = create(), x6 = create(), x9 = create(), x11 = create(), x22 = create(), x44 = create();
+        int[] t = create();
+        sqr(x2, a);
+        mul(x2, x2, a);
+        sqr(x3, x2);
+        mul(x3, x3, a);
+        sqrN(x6, x3, 3);
+        mul(x6, x6, x3);
+        sqrN(x9, x6, 3);
+        mul(x9, x9, x3);
+        sqrN(x11, x9, 2);
+        mul(x11, x11, x2);
+        sqrN(x22, x11, 11);
+        mul(x22, x22, x11);
+        sqrN(x44, x22, 22);
+        mul(x44, x44, x22);
+        // t = x88, x176, x220, x223 in turn
+        sqrN(t, x44, 44);
+        mul(t, t, x44);
+        int[] x88 = t.clone();
+        sqrN(t, t, 88);
+        mul(t, t, x88);
+        sqrN(t, t, 44);
+        mul(t, t, x44);
+        sqrN(t, t, 3);
+        mul(t, t, x3);
+        // p - 2 continues with 0, 22 ones, 0000 1, 0 11, 0 1
+        sqrN(t, t, 23);
+        mul(t, t, x22);
+        sqrN(t, t, 5);
+        mul(t, t, a);
+        sqrN(t, t, 3);
+        mul(t, t, x2);
+        sqrN(t, t, 2);
+        mul(r, t, a);
+    }
+
+    private static void sqrN(int[] r, int[] a, int n) {
+        sqr(r, a);
+        for (int i = 1; i < n; i++) {
+            sqr(r, r);
+        }
+    }
+
+    /**
+     * Carries the limbs (non-negative, below 2^62) into 26 bits each and folds everything from bit 256 up back in
+     */
+    private static void reduce(int[] r, long c0, long c1, long c2, long c3, long c4, long c5, long c6, long c7, long c8, long c9) {
+        c1 += c0 >>> 26; c0 &= M;
+        c2 += c1 >>> 26; c1 &= M;
+        c3 += c2 >>> 26; c2 &= M;
+        c4 += c3 >>> 26; c3 &= M;
+        c5 += c4 >>> 26; c4 &= M;
+        c6 += c5 >>> 26; c5 &= M;
+        c7 += c6 >>> 26; c6 &= M;
+        c8 += c7 >>> 26; c7 &= M;
+        c9 += c8 >>> 26; c8 &= M;
+        // 2^256 = 0x1000003D1 = 0x3D1 + 0x40 * 2^26 (mod p)
+        long t = c9 >>> 22;
+        c9 &= 0x3FFFFF;
+        c0 += t * 0x3D1;
+        c1 += t << 6;
+        c1 += c0 >>> 26; c0 &= M;
+        c2 += c1 >>> 26; c1 &= M;
+        c3 += c2 >>> 26; c2 &= M;
+        c4 += c3 >>> 26; c3 &= M;
+        c5 += c4 >>> 26; c4 &= M;
+        c6 += c5 >>> 26; c5 &= M;
+        c7 += c6 >>> 26; c6 &= M;
+        c8 += c7 >>> 26; c7 &= M;
+        c9 += c8 >>> 26; c8 &= M;
+        r[0] = (int) c0; r[1] = (int) c1; r[2] = (int) c2; r[3] = (int) c3; r[4] = (int) c4;
+        r[5] = (int) c5; r[6] = (int) c6; r[7] = (int) c7; r[8] = (int) c8; r[9] = (int) c9;
+    }
+}
@@ -0,0 +1,470 @@
+package io.block.api.utils;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static io.block.api.utils.Secp256k1Field.add;
+import static io.block.api.utils.Secp256k1Field.create;
+import static io.block.api.utils.Secp256k1Field.invert;
+import static io.block.api.utils.Secp256k1Field.mul;
+import static io.block.api.utils.Secp256k1Field.mulInt;
+import static io.block.api.utils.Secp256k1Field.negate;
+import static io.block.api.utils.Secp256k1Field.normalize;
+import static io.block.api.utils.Secp256k1Field.select;
+import static io.block.api.utils.Secp256k1Field.set;
+import static io.block.api.utils.Secp256k1Field.sqr;
+import static io.block.api.utils.Secp256k1Field.sub;
+
+/**
+ * ECDSA over secp256k1 with arithmetic specialized for the curve, instead of BouncyCastle's generic point code. <br>
+ * Field elements are ten 26 bit limbs (see {@link Secp256k1Field}), points are kept in projective coordinates so no
+ * inversion is needed until the end, and the scalar is split with the GLV endomorphism into two halves of about 128 bits,
+ * which halves the number of digits. As the base point is always G, every digit position has its own static table of
+ * multiples, so the scalar multiplication needs no doublings at all, only one addition per digit. The lambda half
+ * reuses the tables of G with x multiplied by beta. Nonces are RFC 6979 like in {@link BouncyCastleSigningEngine}, so
+ * the signatures are byte for byte the same. <br>
+ * The scalar multiplication runs in constant time: every digit reads all entries of its table and keeps one with a
+ * mask, negative digits and zero digits are applied by masked selects, and the addition formula is complete, with no
+ * special cases to branch on. The scalar arithmetic around it (split, nonce, s) uses BigInteger like BouncyCastle's
+ * ECDSASigner. Stateless and safe to use from any thread.
+ */
+public class Secp256k1SigningEngine implements SigningEngine {
+
+    static final BigInteger N = new BigInteger("fffffffffffffffffffffffffffffffebaaedce6af48a03bbfd25e8cd0364141", 16);
+
+    private static final int[] ONE = Secp256k1Field.fromInt(1);
+    private static final int[] GX = field("79be667ef9dcbbac55a06295ce870b07029bfcdb2dce28d959f2815b16f81798");
+    private static final int[] GY = field("483ada7726a3c4655da4fbfc0e1108a8fd17b448a68554199c47d08ffb10d4b8");
+
+    /**
+     * lambda * (x, y) = (beta * x, y)
+     */
+    static final BigInteger LAMBDA = new BigInteger("5363ad4cc05c30e0a5261c028812645a122e22ea20816678df02967c1b23bd72", 16);
+    private static final int[] BETA = field("7ae96a2b657c07106e64479eac3434e99cf0497512f58995c1396c28719501ee");
+
+    // Lattice basis and rounding constants of the scalar split, as in BouncyCastle's GLVTypeBParameters for the curve
+    private static final BigInteger V1A = new BigInteger("3086d221a7d46bcde86c90e49284eb15", 16);
+    private static final BigInteger V1B = new BigInteger("-e4437ed6010e88286f547fa90abfe4c3", 16);
+    private static final BigInteger V2A = new BigInteger("114ca50f7a8e2f3f657c1108d9d44cfd8", 16);
+    private static final BigInteger V2B = V1A;
+    private static final BigInteger G1 = new BigInteger("3086d221a7d46bcde86c90e49284eb153dab", 16);
+    private static final BigInteger G2 = new BigInteger("e4437ed6010e88286f547fa90abfe4c42212", 16);
+    private static final int SPLIT_SHIFT = 272;
+
+    /**
+     * Every digit scans all entries of its position, so a wider window trades fewer additions for longer scans
+     */
+    private static final int WINDOW = 6;
+
+    /**
+     * Both halves of the split scalar are below 2^129, the signed digits need one bit more
+     */
+    private static final int POSITIONS = (131 + WINDOW - 1) / WINDOW;
+
+    private static final int ENTRIES = 1 << (WINDOW - 1);
+
+    /**
+     * 3 * b of y^2 = x^3 + 7, for the complete addition formula
+     */
+    private static final int B3 = 21;
+
+    /**
+     * Affine j * 2^(WINDOW * i) * G for every digit position i and j in [1, 2^(WINDOW-1)], flattened into 20 ints per
+     * point: 10 limbs x, 10 limbs y, about 56 KB in all. Negative digits negate y, the lambda half multiplies x by beta.
+     * Built from G only, so the construction does not need to be constant time.
+     */
+    private static final int[] TABLE;
+
+    static {
+        TABLE = new int[POSITIONS * ENTRIES * 20];
+        int[] baseX = GX.clone(), baseY = GY.clone();
+        Point[] multiples = new Point[ENTRIES];
+        int[][] xs = new int[ENTRIES][], ys = new int[ENTRIES][];
+        for (int i = 0; i < ENTRIES; i++) {
+            xs[i] = create();
+            ys[i] = create();
+        }
+        for (int position = 0; position < POSITIONS; position++) {
+            Point p = new Point();
+            for (int j = 0; j < ENTRIES; j++) {
+                p.addAffine(baseX, baseY);
+                multiples[j] = p.copy();
+            }
+            toAffine(multiples, xs, ys);
+            for (int j = 0; j < ENTRIES; j++) {
+                int offset = (position * ENTRIES + j) * 20;
+                System.arraycopy(xs[j], 0, TABLE, offset, 10);
+                System.arraycopy(ys[j], 0, TABLE, offset + 10, 10);
+            }
+            // The largest entry is 2^(WINDOW-1) times the base, so twice it is the next position's base
+            p.twice();
+            p.toAffine(baseX, baseY);
+        }
+    }
+
+    @Override
+    public byte[] publicKey(byte[] privKey) throws BlockIOException {
+        int[] x = create(), y = create();
+        multiplyGenerator(SigningUtils.privateScalar(privKey, N), x, y);
+        byte[] pubKey = new byte[33];
+        pubKey[0] = (byte) (Secp256k1Field.isOdd(y) ? 0x03 : 0x02);
+        Secp256k1Field.toBytes(x, pubKey, 1);
+        return pubKey;
+    }
+
+    @Override
+    public byte[] sign(byte[] hash, byte[] privKey) throws BlockIOException {
+        BigInteger d = SigningUtils.privateScalar(privKey, N);
+        BigInteger e = new BigInteger(1, hash);
+        if (hash.length * 8 > N.bitLength()) {
+            e = e.shiftRight(hash.length * 8 - N.bitLength());
+        }
+
+        HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+        kCalculator.init(N, d, hash);
+        int[] x = create(), y = create();
+        byte[] xBytes = new byte[32];
+        BigInteger r, s;
+        // Same loop as ECDSASigner, so a retry takes the same next nonce
+        do {
+            BigInteger k;
+            do {
+                k = kCalculator.nextK();
+                multiplyGenerator(k, x, y);
+                Secp256k1Field.toBytes(x, xBytes, 0);
+                r = new BigInteger(1, xBytes).mod(N);
+            } while (r.signum() == 0);
+            s = k.modInverse(N).multiply(e.add(d.multiply(r))).mod(N);
+        } while (s.signum() == 0);
+
+        return SigningUtils.encodeSignature(r, s, N);
+    }
+
+    /**
+     * Writes the affine coordinates of k * G, fully reduced. The same additions and table reads are done for every k.
+     * @param k A scalar in [1, n-1]
+     */
+    static void multiplyGenerator(BigInteger k, int[] x, int[] y) {
+        BigInteger[] split = split(k);
+        int[] digits1 = digits(split[0]);
+        int[] digits2 = digits(split[1]);
+
+        ProjectivePoint p = new ProjectivePoint();
+        for (int position = 0; position < POSITIONS; position++) {
+            p.addPosition(position, digits1[position], digits2[position]);
+        }
+        p.toAffine(x, y);
+    }
+
+    /**
+     * Splits k into k1 + k2 * lambda (mod n) with k1 and k2 of about 128 bits each, either of them possibly negative
+     */
+    static BigInteger[] split(BigInteger k) {
+        BigInteger b1 = roundedShift(k.multiply(G1));
+        BigInteger b2 = roundedShift(k.multiply(G2));
+        BigInteger k1 = k.subtract(b1.multiply(V1A).add(b2.multiply(V2A)));
+        BigInteger k2 = b1.multiply(V1B).add(b2.multiply(V2B)).negate();
+        return new BigInteger[]{k1, k2};
+    }
+
+    /**
+     * value / 2^SPLIT_SHIFT rounded to nearest, without branching on the rounding bit
+     */
+    private static BigInteger roundedShift(BigInteger value) {
+        return value.shiftRight(SPLIT_SHIFT - 1).add(BigInteger.ONE).shiftRight(1);
+    }
+
+    /**
+     * Signed radix 2^WINDOW digits of k, least significant first, each in [-2^(WINDOW-1), 2^(WINDOW-1)) and carrying
+     * the sign of k
+     */
+    static int[] digits(BigInteger k) {
+        int sign = k.signum();
+        BigInteger magnitude = k.abs();
+        int[] words = new int[(POSITIONS * WINDOW + 31) / 32];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = magnitude.shiftRight(32 * i).intValue();
+        }
+
+        int[] digits = new int[POSITIONS];
+        int carry = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            int digit = bits(words, i * WINDOW, WINDOW) + carry;
+            // 1 if digit >= ENTRIES, from the sign bit rather than a comparison
+            carry = (ENTRIES - 1 - digit) >>> 31;
+            digits[i] = sign * (digit - (carry << WINDOW));
+        }
+        if (carry != 0 || magnitude.bitLength() > POSITIONS * WINDOW) {
+            throw new IllegalStateException("Scalar too large for the digit recoding.");
+        }
+        return digits;
+    }
+
+    private static int bits(int[] words, int offset, int count) {
+        int index = offset >>> 5;
+        int shift = offset & 31;
+        long value = (words[index] & 0xFFFFFFFFL) >>> shift;
+        if (shift + count > 32 && index + 1 < words.length) {
+            value |= (words[index + 1] & 0xFFFFFFFFL) << (32 - shift);
+        }
+        return (int) value & ((1 << count) - 1);
+    }
+
+    /**
+     * Converts all points to affine coordinates with a single inversion (Montgomery's trick)
+     */
+    private static void toAffine(Point[] points, int[][] xs, int[][] ys) {
+        int[][] products = new int[points.length][];
+        products[0] = points[0].z.clone();
+        for (int i = 1; i < points.length; i++) {
+            products[i] = create();
+            mul(products[i], products[i - 1], points[i].z);
+        }
+        int[] inverse = create(), zInverse = create(), t = create();
+        invert(inverse, products[points.length - 1]);
+        for (int i = points.length - 1; i >= 0; i--) {
+            if (i > 0) {
+                mul(zInverse, inverse, products[i - 1]);
+                mul(inverse, inverse, points[i].z);
+            } else {
+                set(zInverse, inverse);
+            }
+            sqr(t, zInverse);
+            mul(xs[i], points[i].x, t);
+            mul(t, t, zInverse);
+            mul(ys[i], points[i].y, t);
+            normalize(xs[i]);
+            normalize(ys[i]);
+        }
+    }
+
+    private static int[] field(String hex) {
+        return Secp256k1Field.fromBytes(Hex.decode(hex));
+    }
+
+    /**
+     * A point in homogeneous projective coordinates, (X / Z, Y / Z) in affine ones, starting at infinity, (0, 1, 0).
+     * Used for the scalar multiplication, as the complete formula adds any two points the same way.
+     */
+    private static final class ProjectivePoint {
+        final int[] x = create();
+        final int[] y = Secp256k1Field.fromInt(1);
+        final int[] z = create();
+
+        // The table entries of both digits, and the sum kept or dropped depending on the digit
+        private final int[] ax = create(), ay = create(), bx = create(), by = create();
+        private final int[] sx = create(), sy = create(), sz = create();
+        private final int[] t0 = create(), t1 = create(), t2 = create(), t3 = create(), t4 = create();
+
+        /**
+         * Adds (digit1 + digit2 * lambda) * 2^(WINDOW * position) * G. Both entries are taken in one pass over all
+         * entries of the position, which keeps them with a mask so the memory accesses do not depend on the digits.
+         */
+        void addPosition(int position, int digit1, int digit2) {
+            int sign1 = digit1 >> 31, sign2 = digit2 >> 31;
+            int magnitude1 = (digit1 ^ sign1) - sign1, magnitude2 = (digit2 ^ sign2) - sign2;
+            // A zero digit reads the last entry, any valid point does
+            int index1 = (magnitude1 - 1) & (ENTRIES - 1), index2 = (magnitude2 - 1) & (ENTRIES - 1);
+            Arrays.fill(ax, 0);
+            Arrays.fill(ay, 0);
+            Arrays.fill(bx, 0);
+            Arrays.fill(by, 0);
+            int offset = position * ENTRIES * 20;
+            for (int j = 0; j < ENTRIES; j++, offset += 20) {
+                // -1 for the wanted entry, 0 for all others, as j ^ index is in [0, ENTRIES)
+                int mask1 = ((j ^ index1) - 1) >> 31, mask2 = ((j ^ index2) - 1) >> 31;
+                for (int i = 0; i < 10; i++) {
+                    int ex = TABLE[offset + i], ey = TABLE[offset + 10 + i];
+                    ax[i] |= ex & mask1;
+                    ay[i] |= ey & mask1;
+                    bx[i] |= ex & mask2;
+                    by[i] |= ey & mask2;
+                }
+            }
+            mul(bx, bx, BETA);
+            addEntry(ax, ay, sign1, magnitude1);
+            addEntry(bx, by, sign2, magnitude2);
+        }
+
+        /**
+         * Adds the entry, negated for a negative digit. The sum is computed for a zero digit too, and then dropped.
+         */
+        private void addEntry(int[] ex, int[] ey, int sign, int magnitude) {
+            negate(t0, ey);
+            select(ey, ey, t0, sign);
+            addAffine(ex, ey);
+            int zero = (magnitude - 1) >> 31;
+            select(x, sx, x, zero);
+            select(y, sy, y, zero);
+            select(z, sz, z, zero);
+        }
+
+        /**
+         * (sx, sy, sz) = this + (ax, ay) with algorithm 8 of Renes, Costello and Batina, "Complete addition formulas
+         * for prime order elliptic curves": complete for any point plus an affine one, 11 multiplications
+         */
+        private void addAffine(int[] ax, int[] ay) {
+            mul(t0, x, ax);
+            mul(t1, y, ay);
+            add(t3, ax, ay);
+            add(t4, x, y);
+            mul(t3, t3, t4);
+            add(t4, t0, t1);
+            sub(t3, t3, t4);
+            mul(t4, ay, z);
+            add(t4, t4, y);
+            mul(sy, ax, z);
+            add(sy, sy, x);
+            add(sx, t0, t0);
+            add(t0, sx, t0);
+            mulInt(t2, z, B3);
+            add(sz, t1, t2);
+            sub(t1, t1, t2);
+            mulInt(sy, sy, B3);
+            mul(sx, t4, sy);
+            mul(t2, t3, t1);
+            sub(sx, t2, sx);
+            mul(sy, sy, t0);
+            mul(t1, t1, sz);
+            add(sy, t1, sy);
+            mul(t0, t0, t3);
+            mul(sz, sz, t4);
+            add(sz, sz, t0);
+        }
+
+        void toAffine(int[] ax, int[] ay) {
+            set(t1, z);
+            normalize(t1);
+            int bits = 0;
+            for (int limb : t1) {
+                bits |= limb;
+            }
+            if (bits == 0) {
+                throw new IllegalStateException("Scalar is a multiple of the group order.");
+            }
+            invert(t1, z);
+            mul(ax, x, t1);
+            mul(ay, y, t1);
+            normalize(ax);
+            normalize(ay);
+        }
+    }
+
+    /**
+     * A point in Jacobian coordinates, (X / Z^2, Y / Z^3) in affine ones, with scratch space for the formulas. Only
+     * used to build the tables, which depend on G alone.
+     */
+    private static final class Point {
+        final int[] x = create();
+        final int[] y = create();
+        final int[] z = create();
+        boolean infinity = true;
+
+        private final int[] t1 = create(), t2 = create(), t3 = create(), t4 = create(), t5 = create();
+
+        /**
+         * dbl-2009-l for a = 0: 3 multiplications and 4 squarings
+         */
+        void twice() {
+            if (infinity) {
+                return;
+            }
+            // Z3 = 2 * Y * Z
+            mul(t1, y, z);
+            mulInt(z, t1, 2);
+            // A = X^2, B = Y^2, C = B^2, D = 4 * X * B
+            sqr(t1, x);
+            sqr(t2, y);
+            sqr(t3, t2);
+            mul(t4, x, t2);
+            mulInt(t4, t4, 4);
+            // E = 3 * A, X3 = E^2 - 2 * D
+            mulInt(t1, t1, 3);
+            sqr(x, t1);
+            mulInt(t5, t4, 2);
+            sub(x, x, t5);
+            // Y3 = E * (D - X3) - 8 * C
+            sub(t4, t4, x);
+            mul(t4, t1, t4);
+            mulInt(t3, t3, 8);
+            sub(y, t4, t3);
+        }
+
+        /**
+         * Adds an affine point: 8 multiplications and 3 squarings
+         */
+        void addAffine(int[] ax, int[] ay) {
+            if (infinity) {
+                set(x, ax);
+                set(y, ay);
+                set(z, ONE);
+                infinity = false;
+                return;
+            }
+            // U2 = ax * Z^2, S2 = ay * Z^3
+            sqr(t1, z);
+            mul(t2, t1, z);
+            mul(t1, t1, ax);
+            mul(t2, t2, ay);
+            // H = U2 - X, R = S2 - Y
+            sub(t1, t1, x);
+            sub(t2, t2, y);
+            if (isZero(t1)) {
+                if (isZero(t2)) {
+                    twice();
+                } else {
+                    infinity = true;
+                }
+                return;
+            }
+            // Z3 = Z * H
+            mul(z, z, t1);
+            // HHH = H^3, V = X * H^2
+            sqr(t3, t1);
+            mul(t4, t3, t1);
+            mul(t3, t3, x);
+            // X3 = R^2 - HHH - 2 * V
+            sqr(x, t2);
+            sub(x, x, t4);
+            mulInt(t5, t3, 2);
+            sub(x, x, t5);
+            // Y3 = R * (V - X3) - Y * HHH
+            mul(t4, t4, y);
+            sub(t3, t3, x);
+            mul(t3, t2, t3);
+            sub(y, t3, t4);
+        }
+
+        Point copy() {
+            Point copy = new Point();
+            set(copy.x, x);
+            set(copy.y, y);
+            set(copy.z, z);
+            copy.infinity = infinity;
+            return copy;
+        }
+
+        void toAffine(int[] ax, int[] ay) {
+            invert(t1, z);
+            sqr(t2, t1);
+            mul(ax, x, t2);
+            mul(t2, t2, t1);
+            mul(ay, y, t2);
+            normalize(ax);
+            normalize(ay);
+        }
+
+        private boolean isZero(int[] a) {
+            set(t5, a);
+            normalize(t5);
+            int bits = 0;
+            for (int limb : t5) {
+                bits |= limb;
+            }
+            return bits == 0;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package io.block.api.utils;
+
+/**
+ * Computes secp256k1 public keys and ECDSA signatures for {@link SigningUtils}. <br>
+ * Implementations must use deterministic nonces (RFC 6979 with HMAC-SHA256) and low S values (BIP62), so all of them
+ * produce the same bytes for the same key and message. They must be safe to use from several threads at once.
+ * {@link BouncyCastleSigningEngine} is the default, {@link Secp256k1SigningEngine} an alternative specialized for the curve.
+ */
+public interface SigningEngine {
+
+    /**
+     * @param privKey 32 byte private key
+     * @return The 33 byte compressed public key
+     * @throws BlockIOException If the private key is out of range
+     */
+    byte[] publicKey(byte[] privKey) throws BlockIOException;
+
+    /**
+     * @param hash The message hash to sign
+     * @param privKey 32 byte private key
+     * @return DER encoded signature with a low S value
+     * @throws BlockIOException If the private key is out of range
+     */
+    byte[] sign(byte[] hash, byte[] privKey) throws BlockIOException;
+}
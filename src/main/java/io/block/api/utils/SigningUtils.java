@@ -5,8 +5,6 @@ import io.block.api.model.Signer;
 import io.block.api.model.WithdrawSignRequest;
 import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.DERSequenceGenerator;
-import org.bouncycastle.asn1.sec.SECNamedCurves;
-import org.bouncycastle.asn1.x9.X9ECParameters;
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.InvalidCipherTextException;
 import org.bouncycastle.crypto.PBEParametersGenerator;
@@ -14,39 +12,144 @@ import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.engines.AESEngine;
 import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
-import org.bouncycastle.crypto.params.ECDomainParameters;
-import org.bouncycastle.crypto.params.ECPrivateKeyParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
-import org.bouncycastle.crypto.signers.ECDSASigner;
-import org.bouncycastle.crypto.signers.HMacDSAKCalculator;
 import org.bouncycastle.util.encoders.Base64;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class SigningUtils {
 
+    /**
+     * Inputs of a request are signed in parallel only from this many on, below the hand-off costs more than it saves
+     */
+    static final int PARALLEL_MIN_INPUTS = 4;
+
+    static final SigningEngine DEFAULT_ENGINE = new BouncyCastleSigningEngine();
+
     public static WithdrawSignRequest signWithdrawalRequest(WithdrawSignRequest request, String secretPin) throws BlockIOException {
+        return signWithdrawalRequest(request, PreparedPin.of(secretPin), null, null, null);
+    }
 
-        byte[] privKey = getPrivKeyFromPassphrase(
-            Base64.decode(request.encryptedPassphrase.passphrase),
-            pinToKey(secretPin));
+    static WithdrawSignRequest signWithdrawalRequest(WithdrawSignRequest request, String secretPin, KeyCache keyCache, Executor executor, SigningEngine engine) throws BlockIOException {
+        return signWithdrawalRequest(request, PreparedPin.of(secretPin), keyCache, executor, engine);
+    }
 
-        byte[] generatedPubKey = SigningUtils.derivePublicKey(privKey);
-        for (Input input : request.inputs) {
-            for (Signer signer : input.signers) {
-                if (Arrays.equals(generatedPubKey, SigningUtils.fromHex(signer.signerPubKey))) {
-                    signer.signedData = signData(input.dataToSign, privKey);
+    /**
+     * Signs the inputs of a withdrawal request. The keys are reused from the cache if they were derived for the same
+     * encrypted passphrase and PIN before. Inputs may be signed in parallel; signatures use deterministic nonces
+     * (RFC 6979), so the result is the same as signing them one by one. The PIN is wiped afterwards.
+     * @param request The request as returned by the API
+     * @param pin The secret PIN, see {@link PreparedPin#start(String, Executor)}
+     * @param keyCache Cache of derived keys, may be null
+     * @param executor Runs the signing of the inputs, e.g. {@link java.util.concurrent.ForkJoinPool#commonPool()}.
+     *                 Null signs them sequentially on the calling thread.
+     * @param engine The signing engine, null for {@link BouncyCastleSigningEngine}
+     * @return The request, with signed data filled in
+     * @throws BlockIOException
+     */
+    public static WithdrawSignRequest signWithdrawalRequest(WithdrawSignRequest request, PreparedPin pin, KeyCache keyCache, Executor executor, SigningEngine engine) throws BlockIOException {
+        if (engine == null) {
+            engine = DEFAULT_ENGINE;
+        }
+        KeyCache.KeyPair keys;
+        try {
+            byte[] encryptedPassphrase = Base64.decode(request.encryptedPassphrase.passphrase);
+            keys = keyCache != null ? keyCache.get(encryptedPassphrase, pin.secretPin()) : null;
+            if (keys == null) {
+                keys = deriveKeys(encryptedPassphrase, pin.key(), engine);
+                if (keyCache != null) {
+                    keyCache.put(encryptedPassphrase, pin.secretPin(), keys);
                 }
             }
+        } finally {
+            pin.wipe();
+        }
+
+        try {
+            List<Input> toSign = new ArrayList<Input>(request.inputs.size());
+            for (Input input : request.inputs) {
+                if (ownSigner(input, keys.pubKey) != null) {
+                    toSign.add(input);
+                }
+            }
+
+            if (executor == null || toSign.size() < PARALLEL_MIN_INPUTS) {
+                for (Input input : toSign) {
+                    setSignedData(input, keys.pubKey, signData(input.dataToSign, keys.privKey, engine));
+                }
+            } else {
+                signInParallel(toSign, keys, executor, engine);
+            }
+        } finally {
+            keys.wipe();
         }
 
         return request;
     }
 
+    private static void signInParallel(List<Input> inputs, final KeyCache.KeyPair keys, Executor executor, final SigningEngine engine) throws BlockIOException {
+        List<CompletableFuture<String>> signatures = new ArrayList<CompletableFuture<String>>(inputs.size());
+        for (final Input input : inputs) {
+            signatures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return signData(input.dataToSign, keys.privKey, engine);
+                } catch (BlockIOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        // Wait for all of them before returning, the key is wiped afterwards
+        BlockIOException failure = null;
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                setSignedData(inputs.get(i), keys.pubKey, signatures.get(i).join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof BlockIOException ? (BlockIOException) e.getCause()
+                            : new BlockIOException("Unexpected error while signing transaction. Please file an issue report.");
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @return The first signer of the input that belongs to the given public key, or null
+     */
+    private static Signer ownSigner(Input input, byte[] pubKey) {
+        for (Signer signer : input.signers) {
+            if (Hex.equalsHex(pubKey, signer.signerPubKey)) {
+                return signer;
+            }
+        }
+        return null;
+    }
+
+    private static void setSignedData(Input input, byte[] pubKey, String signedData) {
+        for (Signer signer : input.signers) {
+            if (Hex.equalsHex(pubKey, signer.signerPubKey)) {
+                signer.signedData = signedData;
+            }
+        }
+    }
+
+    private static KeyCache.KeyPair deriveKeys(byte[] encryptedPassphrase, byte[] aesKey, SigningEngine engine) throws BlockIOException {
+        byte[] privKey = getPrivKeyFromPassphrase(encryptedPassphrase, aesKey);
+        return new KeyCache.KeyPair(privKey, engine.publicKey(privKey));
+    }
+
     /**
      * Step (0) to (3): Converts secret PIN to AES key
      * @param pin Secret PIN
@@ -61,11 +164,17 @@ public class SigningUtils {
         generator.init(pinBytes, salt, iterations);
         KeyParameter params = (KeyParameter)generator.generateDerivedParameters(128);
 
-        byte[] intResult = PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(toHex(params.getKey()).toCharArray());
+        byte[] firstKey = params.getKey();
+        char[] firstKeyHex = new char[firstKey.length * 2];
+        Hex.encode(firstKey, 0, firstKey.length, firstKeyHex, 0);
+        byte[] intResult = PBEParametersGenerator.PKCS5PasswordToUTF8Bytes(firstKeyHex);
+        Arrays.fill(firstKeyHex, '0');
+        Arrays.fill(firstKey, (byte) 0);
 
         generator = new PKCS5S2ParametersGenerator(new SHA256Digest());
         generator.init(intResult, salt, iterations);
         params = (KeyParameter)generator.generateDerivedParameters(256);
+        Arrays.fill(intResult, (byte) 0);
 
         return params.getKey();
     }
@@ -99,9 +208,16 @@ public class SigningUtils {
     static byte[] getPrivKeyFromPassphrase(byte[] encryptedPassphrase, byte[] key) throws BlockIOException {
         byte[] passphrase = decryptPassphrase(encryptedPassphrase, key);
         try {
-            return getPrivKey(fromHex(new String(passphrase, "UTF-8")));
+            byte[] seed = fromHex(new String(passphrase, "UTF-8"));
+            try {
+                return getPrivKey(seed);
+            } finally {
+                Arrays.fill(seed, (byte) 0);
+            }
         } catch (UnsupportedEncodingException e) {
             throw new BlockIOException("Your system does not seem to support UTF-8 encoding! Aborting signing process.");
+        } finally {
+            Arrays.fill(passphrase, (byte) 0);
         }
     }
 
@@ -156,41 +272,47 @@ public class SigningUtils {
      * @throws BlockIOException
      */
     static byte[] derivePublicKey(byte[] privBytes) throws BlockIOException {
-        X9ECParameters params = SECNamedCurves.getByName("secp256k1");
-        ECDomainParameters ecParams = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(),  params.getH());
-        BigInteger priv = new BigInteger(1, privBytes);
-        byte[] pubBytes = ecParams.getG().multiply(priv).getEncoded(true);
-
-        return pubBytes;
+        return DEFAULT_ENGINE.publicKey(privBytes);
     }
 
-
     static String signData(String input, byte[] key) throws BlockIOException {
-        ECDSASigner signer = new ECDSASigner(new HMacDSAKCalculator(new SHA256Digest()));
-        X9ECParameters params = SECNamedCurves.getByName("secp256k1");
-        ECDomainParameters ecParams = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
-        BigInteger priv = new BigInteger(1, key);
-        ECPrivateKeyParameters privKey = new ECPrivateKeyParameters(priv, ecParams);
+        return signData(input, key, DEFAULT_ENGINE);
+    }
 
-        signer.init(true, privKey);
-        BigInteger[] sigs = signer.generateSignature(fromHex(input));
+    static String signData(String input, byte[] key, SigningEngine engine) throws BlockIOException {
+        return toHex(engine.sign(fromHex(input), key));
+    }
 
-        BigInteger r = sigs[0];
-        BigInteger s = sigs[1];
+    /**
+     * @param privKey Private key bytes
+     * @param n The group order
+     * @return The private key as a scalar
+     * @throws BlockIOException If it is not in [1, n-1]
+     */
+    static BigInteger privateScalar(byte[] privKey, BigInteger n) throws BlockIOException {
+        BigInteger d = new BigInteger(1, privKey);
+        if (d.signum() == 0 || d.compareTo(n) >= 0) {
+            throw new BlockIOException("Invalid private key. Please file an issue report.");
+        }
+        return d;
+    }
 
+    /**
+     * DER encodes an ECDSA signature, replacing S by n - S if it is above n / 2
+     */
+    static byte[] encodeSignature(BigInteger r, BigInteger s, BigInteger n) throws BlockIOException {
         // BIP62: "S must be less than or equal to half of the Group Order N"
-        BigInteger overTwo = params.getN().shiftRight(1);
-        if (s.compareTo(overTwo) == 1) {
-            s = params.getN().subtract(s);
+        if (s.compareTo(n.shiftRight(1)) == 1) {
+            s = n.subtract(s);
         }
 
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(72);
             DERSequenceGenerator seq = new DERSequenceGenerator(bos);
             seq.addObject(new ASN1Integer(r));
             seq.addObject(new ASN1Integer(s));
             seq.close();
-            return toHex(bos.toByteArray());
+            return bos.toByteArray();
         } catch (IOException e) {
             throw new BlockIOException("That should never happen... File an issue report.");  // Cannot happen.
         }
@@ -201,16 +323,8 @@ public class SigningUtils {
      * @param array input bytes
      * @return hex string
      */
-    static String toHex(byte[] array)
-    {
-        BigInteger bi = new BigInteger(1, array);
-        String hex = bi.toString(16);
-        int paddingLength = (array.length * 2) - hex.length();
-        if(paddingLength > 0) {
-            return String.format("%0"  +paddingLength + "d", 0) + hex;
-        } else {
-            return hex;
-        }
+    static String toHex(byte[] array) {
+        return Hex.encode(array);
     }
 
     /**
@@ -219,12 +333,6 @@ public class SigningUtils {
      * @return byte array
      */
     static byte[] fromHex(String s) {
-        int len = s.length();
-        byte[] data = new byte[len / 2];
-        for (int i = 0; i < len; i += 2) {
-            data[i / 2] = (byte) ((Character.digit(s.charAt(i), 16) << 4)
-                    + Character.digit(s.charAt(i+1), 16));
-        }
-        return data;
+        return Hex.decode(s);
     }
-}
\ No newline at end of file
+}
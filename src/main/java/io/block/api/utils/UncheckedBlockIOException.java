@@ -0,0 +1,17 @@
+package io.block.api.utils;
+
+/**
+ * Wraps a {@link io.block.api.utils.BlockIOException} where an API call happens behind an interface that can't throw
+ * checked exceptions, such as {@link java.util.Iterator} or {@link java.util.stream.Stream}.
+ */
+public class UncheckedBlockIOException extends RuntimeException {
+
+    public UncheckedBlockIOException(BlockIOException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized BlockIOException getCause() {
+        return (BlockIOException) super.getCause();
+    }
+}
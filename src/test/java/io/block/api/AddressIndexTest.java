@@ -0,0 +1,112 @@
+package io.block.api;
+
+import io.block.api.utils.Constants;
+import junit.framework.TestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class AddressIndexTest extends TestCase {
+
+    private StubServer stub;
+    private BlockIO api;
+    private Path dir;
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        stub = new StubServer();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        api = new BlockIO("test-key", config);
+        dir = Files.createTempDirectory("index");
+        file = dir.resolve("addresses.index");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        api.close();
+        stub.stop();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    public void testIndexIsRefreshedUpdatedAndPersisted() throws Exception {
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":["
+                + "{\"user_id\":0,\"address\":\"a0\",\"label\":\"default\",\"available_balance\":\"1.0\",\"pending_received_balance\":\"0.0\"},"
+                + "{\"user_id\":1,\"address\":\"a1\",\"label\":\"l\\u00e9\",\"available_balance\":\"2.0\",\"pending_received_balance\":\"0.0\"}]}}");
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"user_id\":2,\"address\":\"a2\",\"label\":\"l2\"}}");
+
+        AddressIndex index = new AddressIndex(api, file, 0);
+        assertEquals(0, index.size());
+        index.refresh();
+        assertEquals(2, index.size());
+        assertEquals("a1", index.getAddressByLabel("lé"));
+        assertEquals("default", index.getLabel("a0"));
+        assertEquals("a1", index.getAddressByUserID(1));
+        assertNull(index.getAddressByLabel("l2"));
+
+        api.getNewAddress("l2");
+        assertEquals("a2", index.getAddressByLabel("l2"));
+        assertEquals("l2", api.async().getNewAddress("l2").get().label);
+        index.close();
+
+        // Later addresses are not added to a closed index
+        api.getNewAddress("l2");
+        int calls = stub.hits(Constants.Methods.GET_MY_ADDRESSES);
+
+        index = new AddressIndex(api, file, 0);
+        assertEquals(3, index.size());
+        assertEquals("a2", index.getAddressByUserID(2));
+        assertEquals("l2", index.getLabel("a2"));
+        assertEquals("a0", index.getAddressByLabel("default"));
+        assertEquals(calls, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+        index.close();
+    }
+
+    public void testConcurrentRefreshes() throws Exception {
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":["
+                + "{\"user_id\":0,\"address\":\"a0\",\"label\":\"default\",\"available_balance\":\"1.0\",\"pending_received_balance\":\"0.0\"}]}}");
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"user_id\":2,\"address\":\"a2\",\"label\":\"l2\"}}");
+        CountDownLatch release = new CountDownLatch(1);
+        stub.hold(Constants.Methods.GET_MY_ADDRESSES, release);
+
+        final AddressIndex index = new AddressIndex(api, file, 0);
+        ExecutorService refreshers = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Void> refresh = new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    index.refresh();
+                    return null;
+                }
+            };
+            Future<Void> first = refreshers.submit(refresh);
+            while (stub.hits(Constants.Methods.GET_MY_ADDRESSES) == 0) {
+                Thread.sleep(5);
+            }
+            Future<Void> second = refreshers.submit(refresh);
+            api.getNewAddress("l2");
+            stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":["
+                    + "{\"user_id\":0,\"address\":\"a0\",\"label\":\"default\",\"available_balance\":\"1.0\",\"pending_received_balance\":\"0.0\"},"
+                    + "{\"user_id\":2,\"address\":\"a2\",\"label\":\"l2\",\"available_balance\":\"0.0\",\"pending_received_balance\":\"0.0\"}]}}");
+            Thread.sleep(100);
+            release.countDown();
+            first.get();
+            second.get();
+
+            assertEquals(2, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+            assertEquals(2, index.size());
+            assertEquals("a2", index.getAddressByLabel("l2"));
+        } finally {
+            release.countDown();
+            refreshers.shutdownNow();
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,643 @@
+package io.block.api;
+
+import io.block.api.model.AccountAddresses;
+import io.block.api.model.AccountBalance;
+import io.block.api.model.Address;
+import io.block.api.model.AddressBalances;
+import io.block.api.model.Balance;
+import io.block.api.model.FixedAmount;
+import io.block.api.model.GreenTransactions;
+import io.block.api.model.Prices;
+import io.block.api.model.Response;
+import io.block.api.model.TransactionReceived;
+import io.block.api.model.Withdrawal;
+import io.block.api.transport.HttpClientTransport;
+import io.block.api.transport.TransportRequest;
+import io.block.api.transport.TransportResponse;
+import io.block.api.utils.BlockIOException;
+import io.block.api.utils.Constants;
+import junit.framework.TestCase;
+import org.apache.http.Consts;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.apache.http.message.BasicNameValuePair;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class BlockIOTest extends TestCase {
+
+    static final String BALANCE_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGETEST\",\"available_balance\":\"12.50000000\",\"pending_received_balance\":\"0.00000000\"}}";
+
+    static final String PRICES_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"prices\":[{\"price\":\"0.00020000\",\"price_base\":\"USD\",\"exchange\":\"cryptsy\",\"time\":1414000000}]}}";
+    static final String NEW_ADDRESS_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"user_id\":5,\"address\":\"DNewAddr\",\"label\":\"payout\"}}";
+
+    private StubServer stub;
+    private BlockIO api;
+
+    @Override
+    protected void setUp() throws Exception {
+        stub = new StubServer();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        api = new BlockIO("test-key", config);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        api.close();
+        stub.stop();
+    }
+
+    public void testGetOverPooledTransport() throws Exception {
+        stub.respond(Constants.Methods.GET_ACCOUNT_BALANCE, BALANCE_JSON);
+
+        for (int i = 0; i < 3; i++) {
+            AccountBalance balance = api.getAccountBalance();
+            assertEquals("DOGETEST", balance.network);
+            assertEquals("12.50000000", balance.availableBalance.toString());
+        }
+        assertEquals(3, stub.hits(Constants.Methods.GET_ACCOUNT_BALANCE));
+        assertEquals("test-key", stub.requests().get(0).get(Constants.Params.API_KEY));
+    }
+
+    public void testConfigChangesAfterCreationHaveNoEffect() throws Exception {
+        api.close();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        api = new BlockIO("test-key", config);
+        config.apiUrl = "http://127.0.0.1:1/api/v2";
+        config.cacheTtlMillis.put(Constants.Methods.GET_ACCOUNT_BALANCE, 60000L);
+
+        stub.respond(Constants.Methods.GET_ACCOUNT_BALANCE, BALANCE_JSON);
+        api.getAccountBalance();
+        api.getAccountBalance();
+        assertEquals(2, stub.hits(Constants.Methods.GET_ACCOUNT_BALANCE));
+    }
+
+    public void testApiErrorIsReported() throws Exception {
+        stub.respond(Constants.Methods.GET_ADDR_BY_LABEL, 404, "{\"status\":\"fail\",\"data\":{\"error_message\":\"Label not found\"}}");
+
+        try {
+            api.getAddressByLabel("nope");
+            fail();
+        } catch (BlockIOException e) {
+            assertEquals("API returned error: Label not found", e.getMessage());
+        }
+        assertEquals("nope", stub.requests().get(0).get(Constants.Params.LABEL));
+    }
+
+    public void testAsync() throws Exception {
+        stub.respond(Constants.Methods.GET_ACCOUNT_BALANCE, BALANCE_JSON);
+
+        List<CompletableFuture<AccountBalance>> futures = new ArrayList<CompletableFuture<AccountBalance>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(api.async().getAccountBalance());
+        }
+        for (CompletableFuture<AccountBalance> future : futures) {
+            assertEquals("12.50000000", future.get().availableBalance.toString());
+        }
+
+        try {
+            api.async().getAddressByLabel("nope").get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BlockIOException);
+        }
+    }
+
+    public void testConcurrentIdenticalReadsAreCoalesced() throws Exception {
+        stub.respond(Constants.Methods.GET_PRICES, PRICES_JSON);
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, NEW_ADDRESS_JSON);
+        stub.setDelay(300);
+
+        List<ApiCall<Object>> calls = new ArrayList<ApiCall<Object>>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(new ApiCall<Object>() {
+                @Override
+                public Object call(BlockIO api) throws BlockIOException {
+                    return api.getPrices("USD");
+                }
+            });
+            calls.add(new ApiCall<Object>() {
+                @Override
+                public Object call(BlockIO api) throws BlockIOException {
+                    return api.getNewAddress("payout");
+                }
+            });
+        }
+        CompletableFuture<Prices> asyncPrices = api.async().getPrices("USD");
+
+        for (BulkResult<Object> result : api.executeAll(calls)) {
+            assertTrue(result.isSuccess());
+        }
+        assertEquals("USD", asyncPrices.get().prices.get(0).priceBase);
+
+        assertEquals(1, stub.hits(Constants.Methods.GET_PRICES));
+        // Creating addresses is not idempotent, so those calls must never be shared
+        assertEquals(8, stub.hits(Constants.Methods.GET_NEW_ADDRESS));
+    }
+
+    public void testCacheServesReadsUntilInvalidatedByWrite() throws Exception {
+        api.close();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.cacheTtlMillis.put(Constants.Methods.GET_PRICES, 60000L);
+        config.cacheTtlMillis.put(Constants.Methods.GET_MY_ADDRESSES, 60000L);
+        config.cacheMaxEntries = 2;
+        api = new BlockIO("test-key", config);
+
+        stub.respond(Constants.Methods.GET_PRICES, PRICES_JSON);
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":[]}}");
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, NEW_ADDRESS_JSON);
+
+        api.getPrices("USD");
+        api.getPrices("USD");
+        api.async().getPrices("USD").get();
+        assertEquals(1, stub.hits(Constants.Methods.GET_PRICES));
+
+        api.getAccountAddresses();
+        api.getAccountAddresses();
+        assertEquals(1, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+
+        // A new address makes the cached address list stale
+        api.getNewAddress("payout");
+        api.getAccountAddresses();
+        assertEquals(2, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+
+        // Third distinct key evicts the least recently used one
+        api.getPrices("EUR");
+        CacheStats stats = api.getCacheStats();
+        assertEquals(1, stats.evictions);
+        assertEquals(2, stats.size);
+        assertEquals(3, stats.hits);
+        assertEquals(4, stats.misses);
+    }
+
+    public void testReadJoiningAfterWriteIsNotCached() throws Exception {
+        api.close();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.cacheTtlMillis.put(Constants.Methods.GET_MY_ADDRESSES, 60000L);
+        api = new BlockIO("test-key", config);
+
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":[]}}");
+        stub.respond(Constants.Methods.GET_NEW_ADDRESS, NEW_ADDRESS_JSON);
+        CountDownLatch release = new CountDownLatch(1);
+        stub.hold(Constants.Methods.GET_MY_ADDRESSES, release);
+
+        ExecutorService readers = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<AccountAddresses> leader = api.async().getAccountAddresses();
+            while (stub.hits(Constants.Methods.GET_MY_ADDRESSES) == 0) {
+                Thread.sleep(5);
+            }
+            // The write completes while the leader's request, started before it, is still out
+            api.getNewAddress("payout");
+            Future<AccountAddresses> follower = readers.submit(new Callable<AccountAddresses>() {
+                @Override
+                public AccountAddresses call() throws Exception {
+                    return api.getAccountAddresses();
+                }
+            });
+            Thread.sleep(200);
+            release.countDown();
+            leader.get();
+            follower.get();
+            assertEquals(1, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+
+            // The pre-write response must not have been cached
+            api.getAccountAddresses();
+            assertEquals(2, stub.hits(Constants.Methods.GET_MY_ADDRESSES));
+        } finally {
+            release.countDown();
+            readers.shutdownNow();
+        }
+    }
+
+    public void testSingleAddressLookupsAreBatched() throws Exception {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"available_balance\":\"15.0\",\"pending_received_balance\":\"0.0\",\"balances\":[");
+        for (int i = 0; i < 5; i++) {
+            json.append(i > 0 ? "," : "").append("{\"user_id\":").append(i).append(",\"address\":\"addr").append(i)
+                    .append("\",\"label\":\"l").append(i).append("\",\"available_balance\":\"").append(i).append(".0\",\"pending_received_balance\":\"0.0\"}");
+        }
+        stub.respond(Constants.Methods.GET_ADDR_BALANCE, json.append("]}}").toString());
+        stub.respond(Constants.Methods.IS_GREEN_ADDR, "{\"status\":\"success\",\"data\":{\"green_addresses\":[{\"address\":\"addr2\",\"network\":\"DOGE\"}]}}");
+
+        AddressBatcher batcher = new AddressBatcher(api, 200, 100);
+        try {
+            List<CompletableFuture<Balance>> balances = new ArrayList<CompletableFuture<Balance>>();
+            List<CompletableFuture<Boolean>> green = new ArrayList<CompletableFuture<Boolean>>();
+            for (int i = 0; i < 5; i++) {
+                balances.add(batcher.getAddressBalance("addr" + i));
+                green.add(batcher.isGreenAddress("addr" + i));
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals(FixedAmount.ofUnits(i * FixedAmount.UNITS_PER_COIN), balances.get(i).get().availableBalance);
+                assertEquals(i == 2, green.get(i).get().booleanValue());
+            }
+        } finally {
+            batcher.close();
+        }
+
+        assertEquals(1, stub.hits(Constants.Methods.GET_ADDR_BALANCE));
+        assertEquals(1, stub.hits(Constants.Methods.IS_GREEN_ADDR));
+        for (Map<String, String> request : stub.requests()) {
+            assertEquals(5, request.get(Constants.Params.ADDRS).split(",").length);
+        }
+    }
+
+    public void testFailedBatchIsRetriedSinglyOnlyForApiErrors() throws Exception {
+        AddressBatcher batcher = new AddressBatcher(api, 200, 3);
+        try {
+            // The API is down, one request fails all lookups
+            stub.respond(Constants.Methods.GET_ADDR_BALANCE, 503, "");
+            List<CompletableFuture<Balance>> balances = new ArrayList<CompletableFuture<Balance>>();
+            for (int i = 0; i < 3; i++) {
+                balances.add(batcher.getAddressBalance("addr" + i));
+            }
+            for (CompletableFuture<Balance> balance : balances) {
+                try {
+                    balance.get();
+                    fail();
+                } catch (ExecutionException expected) {
+                }
+            }
+            assertEquals(1, stub.hits(Constants.Methods.GET_ADDR_BALANCE));
+
+            // The API rejected the batch, each address is tried on its own
+            stub.respond(Constants.Methods.GET_ADDR_BALANCE, 404, "{\"status\":\"fail\",\"data\":{\"error_message\":\"Address not found\"}}");
+            balances.clear();
+            for (int i = 0; i < 3; i++) {
+                balances.add(batcher.getAddressBalance("addr" + i));
+            }
+            for (CompletableFuture<Balance> balance : balances) {
+                try {
+                    balance.get();
+                    fail();
+                } catch (ExecutionException expected) {
+                }
+            }
+            assertEquals(5, stub.hits(Constants.Methods.GET_ADDR_BALANCE));
+
+            // The window timer of the batch sent for being full must not send the next batch early
+            long start = System.currentTimeMillis();
+            batcher.getAddressBalance("addr0");
+            batcher.getAddressBalance("addr1");
+            batcher.getAddressBalance("addr2");
+            Thread.sleep(100);
+            CompletableFuture<Balance> next = batcher.getAddressBalance("addr3");
+            try {
+                next.get();
+            } catch (ExecutionException expected) {
+            }
+            assertTrue(System.currentTimeMillis() - start >= 280);
+        } finally {
+            batcher.close();
+        }
+    }
+
+    public void testPayoutsAreBatchedIntoOneWithdrawal() throws Exception {
+        String signRequest = new String(Files.readAllBytes(Paths.get(getClass().getResource("utils/sample_signing_request.json").toURI())), "UTF-8");
+        stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, signRequest);
+        stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txid\":\"t1\",\"amount_withdrawn\":\"16.00000000\",\"amount_sent\":\"15.00000000\",\"network_fee\":\"1.00000000\",\"blockio_fee\":\"0.00000000\"}}");
+
+        WithdrawalBatcher batcher = new WithdrawalBatcher(api, "bc4779ff545bc04a54e6c32b7609a91b", 200, 100);
+        List<CompletableFuture<Withdrawal>> payouts = new ArrayList<CompletableFuture<Withdrawal>>();
+        try {
+            for (int i = 1; i <= 5; i++) {
+                payouts.add(batcher.withdrawToAddress("addr" + i, FixedAmount.ofUnits(i * FixedAmount.UNITS_PER_COIN)));
+            }
+            // Paying addr1 again can't be merged into the pending batch
+            payouts.add(batcher.withdrawToAddress("addr1", FixedAmount.ofUnits(FixedAmount.UNITS_PER_COIN)));
+        } finally {
+            batcher.close();
+        }
+        for (CompletableFuture<Withdrawal> payout : payouts) {
+            assertEquals("t1", payout.get().txid);
+        }
+
+        assertEquals(2, stub.hits(Constants.Methods.WITHDRAW_FROM_ANY));
+        assertEquals(2, stub.hits(Constants.Methods.WITHDRAW_DO_FINAL));
+        Set<String> targets = new HashSet<String>();
+        for (Map<String, String> request : stub.requests()) {
+            if (request.containsKey(Constants.Params.TO_ADDRS)) {
+                targets.add(request.get(Constants.Params.TO_ADDRS) + " " + request.get(Constants.Params.AMOUNTS));
+            }
+        }
+        assertEquals(new HashSet<String>(Arrays.asList(
+                "addr1,addr2,addr3,addr4,addr5 1.00000000,2.00000000,3.00000000,4.00000000,5.00000000",
+                "addr1 1.00000000")), targets);
+    }
+
+    public void testConcurrentPayoutsNeverExceedBatchSize() throws Exception {
+        String signRequest = new String(Files.readAllBytes(Paths.get(getClass().getResource("utils/sample_signing_request.json").toURI())), "UTF-8");
+        stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, signRequest);
+        stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txid\":\"t1\",\"amount_withdrawn\":\"4.00000000\",\"amount_sent\":\"3.00000000\",\"network_fee\":\"1.00000000\",\"blockio_fee\":\"0.00000000\"}}");
+
+        final WithdrawalBatcher batcher = new WithdrawalBatcher(api, "bc4779ff545bc04a54e6c32b7609a91b", 60000, 3);
+        final List<CompletableFuture<Withdrawal>> payouts = new CopyOnWriteArrayList<CompletableFuture<Withdrawal>>();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService payers = Executors.newFixedThreadPool(8);
+        try {
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                payers.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        for (int i = 0; i < 15; i++) {
+                            payouts.add(batcher.withdrawToAddress("addr" + thread + "_" + i, FixedAmount.ofUnits(FixedAmount.UNITS_PER_COIN)));
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            payers.shutdown();
+            assertTrue(payers.awaitTermination(10, TimeUnit.SECONDS));
+        } finally {
+            batcher.close();
+        }
+        for (CompletableFuture<Withdrawal> payout : payouts) {
+            assertEquals("t1", payout.get().txid);
+        }
+
+        int targets = 0;
+        for (Map<String, String> request : stub.requests()) {
+            if (Constants.Methods.WITHDRAW_FROM_ANY.equals(request.get("_method"))) {
+                int size = request.get(Constants.Params.TO_ADDRS).split(",").length;
+                assertTrue(size <= 3);
+                targets += size;
+            }
+        }
+        assertEquals(120, targets);
+    }
+
+    public void testPayoutBatchSentEarlyDoesNotShortenNextWindow() throws Exception {
+        String signRequest = new String(Files.readAllBytes(Paths.get(getClass().getResource("utils/sample_signing_request.json").toURI())), "UTF-8");
+        stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, signRequest);
+        stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txid\":\"t1\",\"amount_withdrawn\":\"2.00000000\",\"amount_sent\":\"1.00000000\",\"network_fee\":\"1.00000000\",\"blockio_fee\":\"0.00000000\"}}");
+
+        WithdrawalBatcher batcher = new WithdrawalBatcher(api, "bc4779ff545bc04a54e6c32b7609a91b", 500, 100);
+        try {
+            long start = System.currentTimeMillis();
+            batcher.withdrawToAddress("addr1", FixedAmount.ofUnits(FixedAmount.UNITS_PER_COIN));
+            Thread.sleep(250);
+            // Sends the first batch early, the second one has to wait for its own window
+            CompletableFuture<Withdrawal> second = batcher.withdrawToAddress("addr1", FixedAmount.ofUnits(FixedAmount.UNITS_PER_COIN));
+            while (stub.hits(Constants.Methods.WITHDRAW_FROM_ANY) < 2) {
+                Thread.sleep(5);
+            }
+            assertTrue(System.currentTimeMillis() - start >= 700);
+            assertEquals("t1", second.get().txid);
+        } finally {
+            batcher.close();
+        }
+    }
+
+    public void testLargeLookupsAreChunkedAndMerged() throws Exception {
+        api.close();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.maxItemsPerRequest = 10;
+        api = new BlockIO("test-key", config);
+
+        stub.respond(Constants.Methods.GET_ADDR_BALANCE, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"available_balance\":\"1.25000000\",\"pending_received_balance\":\"0.50000000\",\"balances\":[{\"user_id\":1,\"address\":\"a\",\"label\":\"l\",\"available_balance\":\"1.25000000\",\"pending_received_balance\":\"0.50000000\"}]}}");
+        stub.respond(Constants.Methods.IS_GREEN_TX, "{\"status\":\"success\",\"data\":{\"green_txs\":[{\"txid\":\"t\",\"network\":\"DOGE\"}]}}");
+
+        String[] addresses = new String[25];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = "addr" + i;
+        }
+
+        AddressBalances balances = api.getAddressBalancesByAddress(addresses);
+        assertEquals(3, stub.hits(Constants.Methods.GET_ADDR_BALANCE));
+        assertEquals(3, balances.balances.size());
+        assertEquals("3.75000000", balances.availableBalance.toString());
+        assertEquals("1.50000000", balances.pedingReceivedBalance.toString());
+
+        Set<String> requested = new HashSet<String>();
+        for (Map<String, String> request : stub.requests()) {
+            String[] chunk = request.get(Constants.Params.ADDRS).split(", ?");
+            assertTrue(chunk.length <= 10);
+            requested.addAll(Arrays.asList(chunk));
+        }
+        assertEquals(new HashSet<String>(Arrays.asList(addresses)), requested);
+
+        assertEquals(3, api.async().isGreenTransaction(addresses).get().greenTransactions.size());
+        assertEquals(3, stub.hits(Constants.Methods.IS_GREEN_TX));
+    }
+
+    public void testAsyncChunksRespectBulkConcurrency() throws Exception {
+        api.close();
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.maxItemsPerRequest = 10;
+        config.bulkConcurrency = 2;
+        api = new BlockIO("test-key", config);
+
+        stub.respond(Constants.Methods.IS_GREEN_TX, "{\"status\":\"success\",\"data\":{\"green_txs\":[{\"txid\":\"t\",\"network\":\"DOGE\"}]}}");
+        CountDownLatch release = new CountDownLatch(1);
+        stub.hold(Constants.Methods.IS_GREEN_TX, release);
+
+        String[] txIDs = new String[45];
+        for (int i = 0; i < txIDs.length; i++) {
+            txIDs[i] = "tx" + i;
+        }
+        try {
+            Future<GreenTransactions> green = api.async().isGreenTransaction(txIDs);
+            while (stub.hits(Constants.Methods.IS_GREEN_TX) < 2) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(200);
+            assertEquals(2, stub.hits(Constants.Methods.IS_GREEN_TX));
+
+            release.countDown();
+            assertEquals(5, green.get(10, TimeUnit.SECONDS).greenTransactions.size());
+            assertEquals(5, stub.hits(Constants.Methods.IS_GREEN_TX));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    public void testCompressedResponsesAndRequests() throws Exception {
+        stub.respond(Constants.Methods.GET_ACCOUNT_BALANCE, BALANCE_JSON);
+        assertEquals("DOGETEST", api.getAccountBalance().network);
+        assertEquals("DOGETEST", api.async().getAccountBalance().get().network);
+        assertEquals(2, stub.compressedResponses());
+
+        ClientConfig config = new ClientConfig();
+        config.compressResponses = false;
+        config.compressRequestsAboveBytes = 0;
+        HttpClientTransport transport = new HttpClientTransport(config);
+        try {
+            String uri = Constants.buildUri(stub.apiUrl(), Constants.Methods.GET_ACCOUNT_BALANCE, true);
+            TransportResponse response = transport.execute(TransportRequest.post(uri, "label=payout".getBytes("UTF-8")));
+            response.close();
+        } finally {
+            transport.close();
+        }
+        assertEquals(2, stub.compressedResponses());
+        Map<String, String> request = stub.requests().get(stub.requests().size() - 1);
+        assertEquals("gzip", request.get("_content_encoding"));
+        assertEquals("payout", request.get("label"));
+    }
+
+    public void testTransactionHistoryPagesLazily() throws Exception {
+        stub.respond(Constants.Methods.GET_TXNS, txPage("t1", 300, "t2", 200));
+        stub.respondWhen(Constants.Methods.GET_TXNS, Constants.Params.BEFORE_TX, "t2", txPage("t3", 100, "t4", 50));
+        stub.respondWhen(Constants.Methods.GET_TXNS, Constants.Params.BEFORE_TX, "t4", txPage());
+
+        TransactionHistory<TransactionReceived> history = api.streamTransactionsReceived(null);
+        assertEquals(0, stub.hits(Constants.Methods.GET_TXNS));
+
+        List<String> txids = new ArrayList<String>();
+        for (TransactionReceived tx : (Iterable<TransactionReceived>) () -> history) {
+            txids.add(tx.txid);
+        }
+        assertEquals(Arrays.asList("t1", "t2", "t3", "t4"), txids);
+        assertEquals(3, stub.hits(Constants.Methods.GET_TXNS));
+
+        // The stop condition lies within the first page, so the second one is never requested
+        try (Stream<TransactionReceived> stream = api.streamTransactionsReceived(null).stopBeforeTime(250).stream()) {
+            assertEquals(1, stream.count());
+        }
+        assertEquals(4, stub.hits(Constants.Methods.GET_TXNS));
+
+        assertEquals(3, api.streamTransactionsReceived(null).stopAtTxid("t4").stream().count());
+    }
+
+    private static String txPage(Object... txidsAndTimes) {
+        StringBuilder json = new StringBuilder("{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txs\":[");
+        for (int i = 0; i < txidsAndTimes.length; i += 2) {
+            json.append(i == 0 ? "" : ",").append("{\"txid\":\"").append(txidsAndTimes[i]).append("\",\"time\":").append(txidsAndTimes[i + 1]).append("}");
+        }
+        return json.append("]}}").toString();
+    }
+
+    public void testVisitAccountAddressesStreamsElements() throws Exception {
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"addresses\":["
+                + "{\"user_id\":0,\"address\":\"a0\",\"label\":\"default\",\"available_balance\":\"1.0\",\"pending_received_balance\":\"0.0\",\"extra\":{\"x\":[1,2]}},"
+                + "{\"user_id\":1,\"address\":\"a1\",\"label\":\"l1\",\"available_balance\":\"2.0\",\"pending_received_balance\":\"0.0\"}]}}");
+
+        final List<Address> visited = new ArrayList<Address>();
+        api.visitAccountAddresses(new ElementVisitor<Address>() {
+            @Override
+            public void visit(Address element) {
+                visited.add(element);
+            }
+        });
+
+        assertEquals(2, visited.size());
+        assertEquals("a0", visited.get(0).address);
+        assertEquals("l1", visited.get(1).label);
+        assertEquals(1, visited.get(1).userID);
+
+        stub.respond(Constants.Methods.GET_MY_ADDRESSES, "{\"status\":\"success\",\"data\":{\"addresses\":[{\"address\"");
+        try {
+            api.getAccountAddresses();
+            fail();
+        } catch (BlockIOException e) {
+            assertEquals("Received invalid data from API.", e.getMessage());
+        }
+    }
+
+    public void testParamEncodingMatchesUrlEncodedUtils() throws Exception {
+        String[] values = {"", "plain", "a b+c&d=e", "addr1,addr2", "{\"reference_id\":\"x\"}", "-_.*~!'()", "\u00e4\u00f6\u00fc\u20ac",
+                "\ud83d\ude00", "lone \ud83d surrogate", "\ude00", "%2C\t\n"};
+        Map<String, String> params = new LinkedHashMap<String, String>();
+        for (int i = 0; i < values.length; i++) {
+            params.put("p" + i + values[i], values[i]);
+        }
+        params.put("no_value", null);
+
+        List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+        pairs.add(new BasicNameValuePair(Constants.Params.API_KEY, "test-key"));
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            pairs.add(new BasicNameValuePair(entry.getKey(), entry.getValue()));
+        }
+        String expected = URLEncodedUtils.format(pairs, Consts.UTF_8);
+
+        assertEquals(expected, new String(ParamEncoder.form("test-key", params), "US-ASCII"));
+        assertEquals("http://host/api/v2/m/?" + expected, ParamEncoder.query("http://host/api/v2/m/", "test-key", params));
+        assertEquals("http://host/api/v2/m/?api_key=test-key", ParamEncoder.query("http://host/api/v2/m/", "test-key", null));
+
+        assertEquals("a", BlockIO.joinList(new String[]{"a"}));
+        assertEquals("a,b,c", BlockIO.joinList(new String[]{"a", "b", "c"}));
+    }
+
+    public void testRequestKeyIgnoresParamOrder() throws Exception {
+        Map<String, String> a = new LinkedHashMap<String, String>();
+        a.put("type", "sent");
+        a.put("before_tx", "abc");
+        Map<String, String> b = new LinkedHashMap<String, String>();
+        b.put("before_tx", "abc");
+        b.put("type", "sent");
+
+        assertEquals(BlockIO.requestKey("get_transactions", a, Response.ResponseTransactionsSent.class),
+                BlockIO.requestKey("get_transactions", b, Response.ResponseTransactionsSent.class));
+    }
+
+    public void testExecuteAllKeepsOrderAndBoundsConcurrency() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<ApiCall<Integer>> calls = new ArrayList<ApiCall<Integer>>();
+        for (int i = 0; i < 50; i++) {
+            final int n = i;
+            calls.add(new ApiCall<Integer>() {
+                @Override
+                public Integer call(BlockIO api) throws BlockIOException {
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        throw new BlockIOException("Interrupted");
+                    }
+                    running.decrementAndGet();
+                    if (n == 7) {
+                        throw new BlockIOException("API returned error: seven");
+                    }
+                    return n * n;
+                }
+            });
+        }
+
+        List<BulkResult<Integer>> results = api.executeAll(calls, 4);
+
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            if (i == 7) {
+                assertFalse(results.get(i).isSuccess());
+                assertEquals("API returned error: seven", results.get(i).error.getMessage());
+            } else {
+                assertTrue(results.get(i).isSuccess());
+                assertEquals(Integer.valueOf(i * i), results.get(i).value);
+            }
+        }
+        assertTrue(maxRunning.get() <= 4);
+    }
+}
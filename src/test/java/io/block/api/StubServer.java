@@ -0,0 +1,200 @@
+package io.block.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal in-process stand-in for the block.io API. Serves canned JSON per API method and records the requests.
+ */
+class StubServer {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, String> responses = new ConcurrentHashMap<String, String>();
+    private final Map<String, String> paramResponses = new ConcurrentHashMap<String, String>();
+    private final Map<String, Integer> statusCodes = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, CountDownLatch> holds = new ConcurrentHashMap<String, CountDownLatch>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<String, AtomicInteger>();
+    private final List<Map<String, String>> requests = Collections.synchronizedList(new ArrayList<Map<String, String>>());
+    private final AtomicInteger compressedResponses = new AtomicInteger();
+    private volatile long delayMillis;
+    private volatile boolean recording = true;
+
+    StubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                String method = path.replaceAll("^/api/v2/|/$", "");
+
+                String query = exchange.getRequestURI().getRawQuery();
+                String contentEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    InputStream body = exchange.getRequestBody();
+                    if ("gzip".equals(contentEncoding)) {
+                        body = new GZIPInputStream(body);
+                    }
+                    query = new String(readAll(body), "UTF-8");
+                }
+                Map<String, String> params = parse(query);
+                params.put("_method", method);
+                if (contentEncoding != null) {
+                    params.put("_content_encoding", contentEncoding);
+                }
+                if (recording) {
+                    requests.add(params);
+                }
+                counter(method).incrementAndGet();
+
+                CountDownLatch hold = holds.get(method);
+                if (hold != null) {
+                    try {
+                        hold.await();
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+                if (delayMillis > 0) {
+                    try {
+                        Thread.sleep(delayMillis);
+                    } catch (InterruptedException ignored) {
+                    }
+                }
+
+                String body = responses.get(method);
+                for (Map.Entry<String, String> param : params.entrySet()) {
+                    String matching = paramResponses.get(method + "?" + param.getKey() + "=" + param.getValue());
+                    if (matching != null) {
+                        body = matching;
+                    }
+                }
+                int status = statusCodes.containsKey(method) ? statusCodes.get(method) : 200;
+                if (body == null) {
+                    body = "{\"status\":\"fail\",\"data\":{\"error_message\":\"Unknown method " + method + "\"}}";
+                    status = 404;
+                }
+                byte[] bytes = body.getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                    gzip.write(bytes);
+                    gzip.close();
+                    bytes = compressed.toByteArray();
+                    exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    compressedResponses.incrementAndGet();
+                }
+                exchange.sendResponseHeaders(status, bytes.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(bytes);
+                os.close();
+            }
+        });
+        server.start();
+    }
+
+    String apiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2";
+    }
+
+    void respond(String method, String json) {
+        respond(method, 200, json);
+    }
+
+    void respond(String method, int status, String json) {
+        responses.put(method, json);
+        statusCodes.put(method, status);
+    }
+
+    /**
+     * Answers requests of the method that carry the given parameter value with a different response
+     */
+    void respondWhen(String method, String param, String value, String json) {
+        paramResponses.put(method + "?" + param + "=" + value, json);
+    }
+
+    /**
+     * Keeps requests of the method waiting until the latch is released
+     */
+    void hold(String method, CountDownLatch release) {
+        holds.put(method, release);
+    }
+
+    void setDelay(long millis) {
+        delayMillis = millis;
+    }
+
+    /**
+     * Whether to keep every request for {@link #requests()}, on by default. Long running benchmarks turn it off.
+     */
+    void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    int compressedResponses() {
+        return compressedResponses.get();
+    }
+
+    int hits(String method) {
+        return counter(method).get();
+    }
+
+    List<Map<String, String>> requests() {
+        synchronized (requests) {
+            return new ArrayList<Map<String, String>>(requests);
+        }
+    }
+
+    void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private AtomicInteger counter(String method) {
+        AtomicInteger counter = hits.get(method);
+        if (counter == null) {
+            hits.putIfAbsent(method, new AtomicInteger());
+            counter = hits.get(method);
+        }
+        return counter;
+    }
+
+    private static Map<String, String> parse(String query) throws IOException {
+        Map<String, String> params = new HashMap<String, String>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+        }
+        return params;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,176 @@
+package io.block.api;
+
+import io.block.api.model.FixedAmount;
+import io.block.api.utils.BlockIOException;
+import io.block.api.utils.Constants;
+import junit.framework.TestCase;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WithdrawalJournalTest extends TestCase {
+
+    private Path dir;
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        dir = Files.createTempDirectory("journal");
+        file = dir.resolve("withdrawals.journal");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(dir);
+    }
+
+    public void testReplayStopsAtTornRecord() throws Exception {
+        Map<String, String> params = Collections.singletonMap(Constants.Params.TO_ADDRS, "addr1");
+        WithdrawalJournal journal = WithdrawalJournal.open(file, 4096);
+        long done = journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params);
+        journal.signRequested(done, "ref1");
+        journal.signed(done, "{\"reference_id\":\"ref1\"}");
+        journal.finalized(done, "tx1");
+        long inDoubt = journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params);
+        journal.signRequested(inDoubt, "ref2");
+        journal.signed(inDoubt, "{\"reference_id\":\"ref2\"}");
+        long failed = journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params);
+        journal.failed(failed, "API returned error: not enough funds");
+        journal.close();
+
+        // A record torn by a crash: length written, payload and checksum not
+        long end = endOfRecords();
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(end);
+            raf.writeInt(300);
+            raf.writeInt(12345);
+            raf.write("{\"id\":4,\"phase\":\"STA".getBytes("UTF-8"));
+        }
+
+        journal = WithdrawalJournal.open(file, 4096);
+        List<WithdrawalJournal.Entry> unfinished = journal.unfinished();
+        assertEquals(1, unfinished.size());
+        WithdrawalJournal.Entry entry = unfinished.get(0);
+        assertEquals(inDoubt, entry.id);
+        assertEquals(WithdrawalJournal.Phase.SIGNED, entry.phase);
+        assertEquals(Constants.Methods.WITHDRAW_FROM_ANY, entry.method);
+        assertEquals(params, entry.params);
+        assertEquals("ref2", entry.referenceID);
+        assertEquals("{\"reference_id\":\"ref2\"}", entry.signedPayload);
+
+        // Appends continue where the torn record was and IDs are not reused
+        assertEquals(failed + 1, journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params));
+        journal.resolve(inDoubt, "tx2");
+        journal.close();
+
+        journal = WithdrawalJournal.open(file, 4096);
+        assertEquals(1, journal.unfinished().size());
+        assertEquals(failed + 1, journal.unfinished().get(0).id);
+        journal.close();
+    }
+
+    public void testCompactionKeepsUnfinishedWithdrawals() throws Exception {
+        Map<String, String> params = new HashMap<String, String>();
+        params.put(Constants.Params.TO_ADDRS, "addr1,addr2");
+        params.put(Constants.Params.AMOUNTS, "1.00000000,2.00000000");
+
+        WithdrawalJournal journal = WithdrawalJournal.open(file, 4096);
+        long unfinished = journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params);
+        journal.signed(unfinished, "{\"reference_id\":\"kept\"}");
+        long last = 0;
+        for (int i = 0; i < 500; i++) {
+            last = journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params);
+            journal.signed(last, "{\"reference_id\":\"ref" + i + "\"}");
+            journal.finalized(last, "tx" + i);
+        }
+        journal.compact();
+        journal.close();
+        assertEquals(4096, Files.size(file));
+
+        journal = WithdrawalJournal.open(file, 4096);
+        assertEquals(1, journal.unfinished().size());
+        assertEquals(unfinished, journal.unfinished().get(0).id);
+        assertEquals("{\"reference_id\":\"kept\"}", journal.unfinished().get(0).signedPayload);
+        // The records of the finished withdrawals are gone, their IDs are still not reused
+        assertEquals(last + 1, journal.started(Constants.Methods.WITHDRAW_FROM_ANY, params));
+        journal.close();
+    }
+
+    public void testWithdrawalsAreJournaled() throws Exception {
+        StubServer stub = new StubServer();
+        WithdrawalJournal journal = WithdrawalJournal.open(file);
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = stub.apiUrl();
+        config.withdrawalJournal = journal;
+        BlockIO api = new BlockIO("test-key", config);
+        try {
+            String signRequest = new String(Files.readAllBytes(Paths.get(getClass().getResource("utils/sample_signing_request.json").toURI())), "UTF-8");
+            stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, signRequest);
+            stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, "{\"status\":\"success\",\"data\":{\"network\":\"DOGE\",\"txid\":\"t1\",\"amount_withdrawn\":\"2.00000000\",\"amount_sent\":\"1.00000000\",\"network_fee\":\"1.00000000\",\"blockio_fee\":\"0.00000000\"}}");
+            assertEquals("t1", api.withdrawToAddress("addr1", FixedAmount.parse("1"), "bc4779ff545bc04a54e6c32b7609a91b").txid);
+            assertEquals("t1", api.async().withdrawToAddress("addr1", FixedAmount.parse("1"), "bc4779ff545bc04a54e6c32b7609a91b").get().txid);
+            assertTrue(journal.unfinished().isEmpty());
+
+            // Finalization failed, the withdrawal may or may not have been sent
+            stub.respond(Constants.Methods.WITHDRAW_DO_FINAL, 500, "");
+            try {
+                api.withdrawToAddress("addr2", FixedAmount.parse("2"), "bc4779ff545bc04a54e6c32b7609a91b");
+                fail();
+            } catch (BlockIOException expected) {
+            }
+            // The sign request failed, nothing was sent
+            stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, 404, "{\"status\":\"fail\",\"data\":{\"error_message\":\"Not enough funds\"}}");
+            try {
+                api.withdrawToAddress("addr3", FixedAmount.parse("3"), "bc4779ff545bc04a54e6c32b7609a91b");
+                fail();
+            } catch (BlockIOException expected) {
+            }
+            // Signing failed, the reference ID of the sign request is recorded anyway
+            stub.respond(Constants.Methods.WITHDRAW_FROM_ANY, signRequest);
+            try {
+                api.withdrawToAddress("addr4", FixedAmount.parse("4"), "wrong pin");
+                fail();
+            } catch (BlockIOException expected) {
+            }
+        } finally {
+            api.close();
+            stub.stop();
+            journal.close();
+        }
+
+        String records = new String(Files.readAllBytes(file), "ISO-8859-1");
+        assertEquals(4, records.split("\"phase\":\"SIGN_REQUESTED\"", -1).length - 1);
+
+        journal = WithdrawalJournal.open(file);
+        List<WithdrawalJournal.Entry> unfinished = journal.unfinished();
+        assertEquals(1, unfinished.size());
+        assertEquals(WithdrawalJournal.Phase.SIGNED, unfinished.get(0).phase);
+        assertEquals("addr2", unfinished.get(0).params.get(Constants.Params.TO_ADDRS));
+        assertNotNull(unfinished.get(0).referenceID);
+        assertTrue(unfinished.get(0).signedPayload.contains(unfinished.get(0).referenceID));
+        journal.close();
+    }
+
+    /**
+     * @return Offset right after the last record, found by walking the length prefixes
+     */
+    private long endOfRecords() throws Exception {
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long pos = 16;
+            raf.seek(pos);
+            int length;
+            while ((length = raf.readInt()) != 0) {
+                pos += 8 + length;
+                raf.seek(pos);
+            }
+            return pos;
+        }
+    }
+}
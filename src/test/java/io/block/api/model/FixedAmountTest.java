@@ -0,0 +1,42 @@
+package io.block.api.model;
+
+import junit.framework.TestCase;
+
+import java.math.BigDecimal;
+
+public class FixedAmountTest extends TestCase {
+
+    public void testParseAndFormat() throws Exception {
+        assertEquals(1250000000L, FixedAmount.parse("12.50000000").units());
+        assertEquals(1250000000L, FixedAmount.parse("12.5").units());
+        assertEquals(1200000000L, FixedAmount.parse("12").units());
+        assertEquals(1L, FixedAmount.parse("0.00000001").units());
+        assertEquals(-10000L, FixedAmount.parse("-0.0001").units());
+        assertEquals(2L, FixedAmount.parse("0.000000015").units());
+        assertEquals(1L, FixedAmount.parse("0.0000000149").units());
+        assertEquals(1L, FixedAmount.parse("1e-8").units());
+
+        assertEquals("12.50000000", FixedAmount.parse("12.5").toString());
+        assertEquals("-0.00010000", FixedAmount.ofUnits(-10000).toString());
+        assertEquals("0.00000000", FixedAmount.ZERO.toString());
+        assertEquals("-92233720368.54775808", FixedAmount.ofUnits(Long.MIN_VALUE).toString());
+        assertEquals(FixedAmount.ofUnits(Long.MAX_VALUE), FixedAmount.parse(FixedAmount.ofUnits(Long.MAX_VALUE).toString()));
+
+        for (String invalid : new String[]{"", "-", ".", "1.2.3", "12a", "92233720368.54775808"}) {
+            try {
+                FixedAmount.parse(invalid);
+                fail(invalid);
+            } catch (NumberFormatException expected) {
+            }
+        }
+    }
+
+    public void testConversions() throws Exception {
+        assertEquals(12345678L, FixedAmount.of(0.12345678).units());
+        assertEquals(300000000L, FixedAmount.valueOf(3).units());
+        assertEquals(10L, FixedAmount.valueOf(new BigDecimal("0.0000001")).units());
+        assertEquals(FixedAmount.parse("3.75"), FixedAmount.parse("2.5").plus(FixedAmount.parse("1.25")));
+        assertEquals(3, FixedAmount.parse("3.75").intValue());
+        assertEquals(3.75, FixedAmount.parse("3.75").doubleValue());
+    }
+}
@@ -0,0 +1,100 @@
+package io.block.api.transport;
+
+import io.block.api.BlockIO;
+import io.block.api.ClientConfig;
+import io.block.api.model.AccountBalance;
+import junit.framework.TestCase;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http.protocol.HttpCoreContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Http2TransportTest extends TestCase {
+
+    private static final String BALANCE_JSON = "{\"status\":\"success\",\"data\":{\"network\":\"DOGETEST\",\"available_balance\":\"12.50000000\",\"pending_received_balance\":\"0.00000000\"}}";
+
+    private HttpAsyncServer server;
+    private final Set<SocketAddress> clientEndpoints = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger requests = new AtomicInteger();
+    private int port;
+
+    @Override
+    protected void setUp() throws Exception {
+        server = H2ServerBootstrap.bootstrap()
+                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_2)
+                .register("*", new AsyncServerRequestHandler<Message<HttpRequest, String>>() {
+                    @Override
+                    public AsyncRequestConsumer<Message<HttpRequest, String>> prepare(HttpRequest request, EntityDetails entityDetails, HttpContext context) {
+                        return new BasicRequestConsumer<String>(new StringAsyncEntityConsumer());
+                    }
+
+                    @Override
+                    public void handle(Message<HttpRequest, String> message, ResponseTrigger responseTrigger, HttpContext context) throws HttpException, IOException {
+                        requests.incrementAndGet();
+                        clientEndpoints.add(HttpCoreContext.adapt(context).getEndpointDetails().getRemoteAddress());
+                        responseTrigger.submitResponse(AsyncResponseBuilder.create(HttpStatus.SC_OK)
+                                .setEntity(BALANCE_JSON, ContentType.APPLICATION_JSON)
+                                .build(), context);
+                    }
+                })
+                .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("127.0.0.1", 0), URIScheme.HTTP).get();
+        port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.close(CloseMode.IMMEDIATE);
+    }
+
+    public void testConcurrentRequestsShareOneConnection() throws Exception {
+        ClientConfig config = new ClientConfig();
+        config.apiUrl = "http://127.0.0.1:" + port + "/api/v2";
+        // Identical reads would otherwise be coalesced into one request and never multiplexed
+        config.coalesceReads = false;
+        BlockIO api = new BlockIO("test-key", config, new Http2Transport(config));
+        try {
+            // Warm up so that all following requests find the connection established
+            assertEquals("12.50000000", api.getAccountBalance().availableBalance.toString());
+
+            List<CompletableFuture<AccountBalance>> futures = new ArrayList<CompletableFuture<AccountBalance>>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(api.async().getAccountBalance());
+            }
+            for (CompletableFuture<AccountBalance> future : futures) {
+                assertEquals("DOGETEST", future.get().network);
+            }
+        } finally {
+            api.close();
+        }
+
+        assertEquals(51, requests.get());
+        assertEquals(1, clientEndpoints.size());
+    }
+}
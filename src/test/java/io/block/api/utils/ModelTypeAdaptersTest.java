@@ -0,0 +1,41 @@
+package io.block.api.utils;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import io.block.api.model.FixedAmount;
+import io.block.api.model.Response;
+import io.block.api.model.WithdrawSignRequest;
+import junit.framework.TestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class ModelTypeAdaptersTest extends TestCase {
+
+    private final Gson adapted = new GsonBuilder().disableHtmlEscaping().registerTypeAdapterFactory(ModelTypeAdapters.FACTORY).create();
+    // Reflective binding of the models, with only the amount type bound by its adapter
+    private final Gson reflective = new GsonBuilder().disableHtmlEscaping().registerTypeAdapter(FixedAmount.class, adapted.getAdapter(FixedAmount.class)).create();
+
+    public void testSigningRequestMatchesReflectiveBinding() throws Exception {
+        String request = new String(Files.readAllBytes(Paths.get(ModelTypeAdaptersTest.class.getResource("sample_signing_request.json").toURI())));
+        String response = new String(Files.readAllBytes(Paths.get(ModelTypeAdaptersTest.class.getResource("sample_signing_response.json").toURI())));
+
+        WithdrawSignRequest signRequest = adapted.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+        signRequest = SigningUtils.signWithdrawalRequest(signRequest, "bc4779ff545bc04a54e6c32b7609a91b");
+
+        assertEquals(response, adapted.toJson(signRequest, WithdrawSignRequest.class));
+    }
+
+    public void testTransactionsMatchReflectiveBinding() throws Exception {
+        String json = "{\"status\":\"success\",\"data\":{\"network\":\"DOGETEST\",\"unknown\":{\"a\":[1,2]},\"txs\":[" +
+                "{\"txid\":\"aa\",\"from_greem_address\":true,\"time\":1409320611,\"confirmations\":\"3\",\"amountsReceived\":[{\"recipient\":\"2N\",\"amount\":12.5}]," +
+                "\"senders\":[\"2M\",null],\"confidence\":1.0,\"propagated_by_nodes\":null}," +
+                "{\"txid\":null,\"from_greem_address\":\"false\",\"time\":1,\"confirmations\":0,\"amountsReceived\":null,\"senders\":[],\"confidence\":0.25}]}}";
+
+        Response.ResponseTransactionsReceived expected = reflective.fromJson(json, Response.ResponseTransactionsReceived.class);
+        Response.ResponseTransactionsReceived actual = adapted.fromJson(json, Response.ResponseTransactionsReceived.class);
+
+        assertEquals(reflective.toJson(expected), reflective.toJson(actual));
+        assertEquals(reflective.toJson(expected), adapted.toJson(actual));
+    }
+}
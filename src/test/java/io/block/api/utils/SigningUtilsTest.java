@@ -10,9 +10,12 @@ import junit.framework.TestCase;
 import org.bouncycastle.util.encoders.Base64;
 import org.junit.Ignore;
 
+import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SigningUtilsTest extends TestCase {
 
@@ -96,4 +99,190 @@ public class SigningUtilsTest extends TestCase {
 
         assertEquals(response, gson.toJson(signResquest, WithdrawSignRequest.class));
     }
-}
\ No newline at end of file
+
+    public void testKeyCache() throws Exception {
+        String request = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_request.json").toURI())));
+        String response = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_response.json").toURI())));
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        String pin = "bc4779ff545bc04a54e6c32b7609a91b";
+        KeyCache cache = new KeyCache(60000, 1);
+
+        WithdrawSignRequest first = gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+        assertEquals(response, gson.toJson(SigningUtils.signWithdrawalRequest(first, pin, cache, null, null), WithdrawSignRequest.class));
+        assertEquals(1, cache.size());
+
+        byte[] encryptedPassphrase = Base64.decode(first.encryptedPassphrase.passphrase);
+        assertNull(cache.get(encryptedPassphrase, "wrong pin"));
+
+        // Signed from the cached key, which is wiped after its only use
+        WithdrawSignRequest second = gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+        assertEquals(response, gson.toJson(SigningUtils.signWithdrawalRequest(second, pin, cache, null, null), WithdrawSignRequest.class));
+        assertEquals(0, cache.size());
+
+        SigningUtils.signWithdrawalRequest(gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest, pin, cache, null, null);
+        assertEquals(1, cache.size());
+        cache.zeroize();
+        assertEquals(0, cache.size());
+    }
+
+    public void testPreparedPin() throws Exception {
+        String request = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_request.json").toURI())));
+        String response = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_response.json").toURI())));
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        String pin = "bc4779ff545bc04a54e6c32b7609a91b";
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            PreparedPin prepared = PreparedPin.start(pin, executor);
+            WithdrawSignRequest signRequest = gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+            assertEquals(response, gson.toJson(SigningUtils.signWithdrawalRequest(signRequest, prepared, null, null, null), WithdrawSignRequest.class));
+            // Wiped after signing
+            assertTrue(Arrays.equals(new byte[32], prepared.key()));
+        } finally {
+            executor.shutdown();
+        }
+
+        // Not derived yet, so never derived at all
+        PreparedPin unused = PreparedPin.of(pin);
+        unused.wipe();
+        assertEquals(0, unused.key().length);
+    }
+
+    public void testParallelSigningMatchesSequential() throws Exception {
+        String request = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_request.json").toURI())));
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        String pin = "bc4779ff545bc04a54e6c32b7609a91b";
+
+        WithdrawSignRequest sequential = manyInputs(gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest, gson);
+        WithdrawSignRequest parallel = manyInputs(gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest, gson);
+
+        SigningUtils.signWithdrawalRequest(sequential, pin, null, null, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SigningUtils.signWithdrawalRequest(parallel, pin, null, executor, null);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(gson.toJson(sequential), gson.toJson(parallel));
+        assertNotNull(parallel.inputs.get(15).signers.get(0).signedData);
+    }
+
+    private static WithdrawSignRequest manyInputs(WithdrawSignRequest request, Gson gson) {
+        Input template = request.inputs.get(0);
+        for (int i = 1; i < 16; i++) {
+            Input input = gson.fromJson(gson.toJson(template), Input.class);
+            input.inputNo = i;
+            input.dataToSign = SigningUtils.toHex(SigningUtils.getPrivKey(new byte[]{(byte) i}));
+            request.inputs.add(input);
+        }
+        return request;
+    }
+
+    public void testSecp256k1EngineMatchesBouncyCastle() throws Exception {
+        SigningEngine engine = new Secp256k1SigningEngine();
+        byte[] priv = SigningUtils.getPrivKey("block.io".getBytes("UTF-8"));
+        assertEquals("03359ac0aa241b1a40fcab68486f8a4b546ad3301d201c3645487093578592ec8f", SigningUtils.toHex(engine.publicKey(priv)));
+        assertEquals("304402205587dfc87c3227ad37b021c08c873ca4b1faada1a83f666d483711edb2f4f743022004ee40d9fe8dd03e6d42bfc7d0e53f75286125a591ed14b39265978ebf3eea36",
+                SigningUtils.signData("695369676e65645468697344617461546861744973323536426974734c6f6e67",
+                        SigningUtils.fromHex("7a01628988d23fae697fa05fcdae5a82fe4f749aa9f24d35d23f81bee917dfc3"), engine));
+
+        String request = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_request.json").toURI())));
+        String response = new String( Files.readAllBytes(Paths.get(SigningUtilsTest.class.getResource("sample_signing_response.json").toURI())));
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        WithdrawSignRequest signRequest = gson.fromJson(request, Response.ResponseWithdrawSignRequest.class).withdrawSignRequest;
+        SigningUtils.signWithdrawalRequest(signRequest, "bc4779ff545bc04a54e6c32b7609a91b", null, null, engine);
+        assertEquals(response, gson.toJson(signRequest, WithdrawSignRequest.class));
+
+        // Edge scalars and a run of pseudo random keys and hashes
+        BigInteger n = Secp256k1SigningEngine.N;
+        // Mostly zero digits, which the multiplication adds and drops like any other
+        byte[][] keys = new byte[][]{unsigned32(BigInteger.ONE), unsigned32(n.subtract(BigInteger.ONE)), unsigned32(n.shiftRight(1)),
+                unsigned32(BigInteger.valueOf(2)), unsigned32(BigInteger.valueOf(256)), unsigned32(BigInteger.ONE.shiftLeft(128)),
+                unsigned32(BigInteger.ONE.shiftLeft(255))};
+        for (byte[] key : keys) {
+            assertTrue(Arrays.equals(SigningUtils.DEFAULT_ENGINE.publicKey(key), engine.publicKey(key)));
+        }
+        for (int i = 0; i < 200; i++) {
+            byte[] key = SigningUtils.getPrivKey(new byte[]{(byte) i, 1});
+            byte[] hash = SigningUtils.getPrivKey(new byte[]{(byte) i, 2});
+            assertTrue(Arrays.equals(SigningUtils.DEFAULT_ENGINE.publicKey(key), engine.publicKey(key)));
+            assertTrue(Arrays.equals(SigningUtils.DEFAULT_ENGINE.sign(hash, key), engine.sign(hash, key)));
+
+            BigInteger k = new BigInteger(1, key).mod(n);
+            BigInteger[] split = Secp256k1SigningEngine.split(k);
+            assertEquals(k, split[0].add(split[1].multiply(Secp256k1SigningEngine.LAMBDA)).mod(n));
+            assertTrue(split[0].bitLength() <= 129 && split[1].bitLength() <= 129);
+        }
+
+        try {
+            engine.sign(keys[0], new byte[32]);
+            fail();
+        } catch (BlockIOException expected) {
+        }
+    }
+
+    public void testSecp256k1Field() throws Exception {
+        BigInteger p = BigInteger.ONE.shiftLeft(256).subtract(new BigInteger("1000003d1", 16));
+        BigInteger[] values = new BigInteger[]{BigInteger.ZERO, BigInteger.ONE, p.subtract(BigInteger.ONE),
+                new BigInteger(1, SigningUtils.getPrivKey(new byte[]{1})), BigInteger.ONE.shiftLeft(256).subtract(BigInteger.ONE)};
+        for (BigInteger a : values) {
+            for (BigInteger b : values) {
+                int[] fa = Secp256k1Field.fromBytes(unsigned32(a));
+                int[] fb = Secp256k1Field.fromBytes(unsigned32(b));
+                int[] r = Secp256k1Field.create();
+                Secp256k1Field.mul(r, fa, fb);
+                assertEquals(a.multiply(b).mod(p), fieldValue(r));
+                Secp256k1Field.sub(r, fa, fb);
+                assertEquals(a.subtract(b).mod(p), fieldValue(r));
+                Secp256k1Field.add(r, fa, fb);
+                assertEquals(a.add(b).mod(p), fieldValue(r));
+            }
+            int[] fa = Secp256k1Field.fromBytes(unsigned32(a));
+            int[] r = Secp256k1Field.create();
+            Secp256k1Field.sqr(r, fa);
+            assertEquals(a.multiply(a).mod(p), fieldValue(r));
+            if (a.mod(p).signum() != 0) {
+                Secp256k1Field.invert(r, fa);
+                assertEquals(a.modInverse(p), fieldValue(r));
+            }
+        }
+    }
+
+    private static BigInteger fieldValue(int[] a) {
+        byte[] bytes = new byte[32];
+        Secp256k1Field.toBytes(a, bytes, 0);
+        return new BigInteger(1, bytes);
+    }
+
+    private static byte[] unsigned32(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] out = new byte[32];
+        int length = Math.min(bytes.length, 32);
+        System.arraycopy(bytes, bytes.length - length, out, 32 - length, length);
+        return out;
+    }
+
+    public void testHexCodec() throws Exception {
+        byte[] bytes = new byte[]{0, 1, (byte) 0x7f, (byte) 0x80, (byte) 0xff};
+        assertEquals("00017f80ff", SigningUtils.toHex(bytes));
+        assertTrue(Arrays.equals(bytes, SigningUtils.fromHex("00017F80ff")));
+
+        char[] chars = new char[8];
+        assertEquals(4, Hex.encode(bytes, 1, 2, chars, 2));
+        assertEquals("017f", new String(chars, 2, 4));
+        byte[] out = new byte[4];
+        assertEquals(2, Hex.decode("abCD", out, 1));
+        assertTrue(Arrays.equals(new byte[]{0, (byte) 0xab, (byte) 0xcd, 0}, out));
+
+        assertTrue(Hex.equalsHex(bytes, "00017f80FF"));
+        assertFalse(Hex.equalsHex(bytes, "00017f80fe"));
+        assertFalse(Hex.equalsHex(bytes, "00017f80fg"));
+        assertFalse(Hex.equalsHex(bytes, "00017f80"));
+        try {
+            SigningUtils.fromHex("0g");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}